@@ -0,0 +1,82 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Build and search times of the task search index over generated task types. Each search invocation runs the next
+ * query of a fixed random set, so the average covers short, long, exact and misspelt queries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskSearchIndexBenchmark
+{
+	@State(Scope.Benchmark)
+	public static class Fields
+	{
+		@Param({"1000", "10000"})
+		public int rows;
+
+		private String[][] fields;
+
+		@Setup
+		public void setup()
+		{
+			fields = TestSearchFields.generateFields(new Random(4), rows);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Queries
+	{
+		@Param({"false", "true"})
+		public boolean fuzzy;
+
+		private TaskSearchIndex index;
+		private final String[] queries = new String[200];
+		private int next = 0;
+
+		@Setup
+		public void setup(Fields fields)
+		{
+			index = TaskSearchIndex.build(fields.fields);
+			Random random = new Random(5);
+			for (int i = 0; i < queries.length; i++)
+			{
+				queries[i] = TestSearchFields.generateQuery(random);
+			}
+		}
+
+		private String nextQuery()
+		{
+			next = next + 1 < queries.length ? next + 1 : 0;
+			return queries[next];
+		}
+	}
+
+	@Benchmark
+	public TaskSearchIndex build(Fields fields)
+	{
+		return TaskSearchIndex.build(fields.fields);
+	}
+
+	@Benchmark
+	public TaskSearchResult search(Queries queries)
+	{
+		return queries.index.search(queries.nextQuery(), queries.fuzzy, null, () -> false);
+	}
+}
@@ -42,6 +42,28 @@ public interface TasksTrackerConfig extends Config
         return true;
     }
 
+    @ConfigItem(
+            position = 13,
+            keyName = "fuzzySearch",
+            name = "Fuzzy Search",
+            description = "Configures whether the task search also matches text with small typos."
+    )
+    default boolean fuzzySearch()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            position = 14,
+            keyName = "orderSearchByRelevance",
+            name = "Order Search by Relevance",
+            description = "Configures whether searching lists tasks by how well they match, name matches first, instead of the selected sort."
+    )
+    default boolean orderSearchByRelevance()
+    {
+        return false;
+    }
+
     @ConfigItem(
             position = 100,
             keyName = "completedFilter",
@@ -137,4 +159,40 @@ public interface TasksTrackerConfig extends Config
     {
         return ConfigValues.SortDirections.ASCENDING;
     }
+
+    @ConfigItem(
+            position = 112,
+            keyName = "thenSortCriteria",
+            name = "Then Sort Criteria",
+            description = "Configures the comma separated criteria to sort tasks on, in order, when the sort criteria are equal.",
+            hidden = true
+    )
+    default String thenSortCriteria()
+    {
+        return "None";
+    }
+
+	@ConfigItem(
+		position = 200,
+		keyName = "structLoadBudgetMs",
+		name = "Struct Load Budget",
+		description = "Configures the time in milliseconds task struct data may be loaded for on each client tick.",
+		hidden = true
+	)
+	default int structLoadBudgetMs()
+	{
+		return 4;
+	}
+
+	@ConfigItem(
+		position = 201,
+		keyName = "varpUpdateLatencyMs",
+		name = "Varp Update Latency",
+		description = "Configures the longest time in milliseconds task completions may be held back while task varps keep changing.",
+		hidden = true
+	)
+	default int varpUpdateLatencyMs()
+	{
+		return 1200;
+	}
 }
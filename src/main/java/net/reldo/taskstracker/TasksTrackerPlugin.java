@@ -7,14 +7,9 @@ import java.awt.Color;
 import java.awt.Toolkit;
 import java.awt.datatransfer.StringSelection;
 import java.awt.image.BufferedImage;
-import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.EnumMap;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -30,19 +25,21 @@ import net.reldo.taskstracker.data.Export;
 import net.reldo.taskstracker.data.LongSerializer;
 import net.reldo.taskstracker.data.TasksSummary;
 import net.reldo.taskstracker.data.TrackerConfigStore;
+import net.reldo.taskstracker.data.jsondatastore.DataStoreExecutor;
+import net.reldo.taskstracker.data.jsondatastore.reader.CachingDataStoreReader;
 import net.reldo.taskstracker.data.jsondatastore.reader.DataStoreReader;
-import net.reldo.taskstracker.data.jsondatastore.reader.HttpDataStoreReader;
 import net.reldo.taskstracker.data.reldo.ReldoImport;
+import net.reldo.taskstracker.data.task.TaskCompletionProcessor;
 import net.reldo.taskstracker.data.task.TaskFromStruct;
 import net.reldo.taskstracker.data.task.TaskService;
+import net.reldo.taskstracker.data.task.TaskSkillIndex;
 import net.reldo.taskstracker.data.task.TaskType;
+import net.reldo.taskstracker.data.task.VarpUpdateScheduler;
 import net.reldo.taskstracker.data.task.filters.FilterService;
 import net.reldo.taskstracker.panel.TasksTrackerPluginPanel;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
-import net.runelite.api.Experience;
 import net.runelite.api.GameState;
-import net.runelite.api.Skill;
 import net.runelite.api.events.CommandExecuted;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
@@ -76,18 +73,11 @@ public class TasksTrackerPlugin extends Plugin
 
 	public int[] playerSkills;
 
-	public String taskTextFilter;
-
 	public TasksTrackerPluginPanel pluginPanel;
 
-	private static final long VARP_UPDATE_THROTTLE_DELAY_MS = 7 * 1000;
-
 	private boolean forceUpdateVarpsFlag = false;
-	private Set<Integer> varpIdsToUpdate = new HashSet<>();
-	private long lastVarpUpdate = 0;
 	private NavigationButton navButton;
 	private RuneScapeProfileType currentProfileType;
-	private final Map<Skill, Integer> oldExperience = new EnumMap<>(Skill.class);
 
 	@Inject	@Named("runelite.version") private String runeliteVersion;
 	@Inject private Gson gson;
@@ -101,13 +91,16 @@ public class TasksTrackerPlugin extends Plugin
 	@Getter @Inject	private TasksTrackerConfig config;
 
 	@Inject	private TrackerConfigStore trackerConfigStore;
-	@Inject private TaskService taskService;
-	@Inject private FilterService filterService;
+	@Getter @Inject private TaskService taskService;
+	@Inject private TaskCompletionProcessor taskCompletionProcessor;
+	@Inject private VarpUpdateScheduler varpUpdateScheduler;
+	@Inject private DataStoreExecutor dataStoreExecutor;
+	@Getter @Inject private FilterService filterService;
 
 	@Override
 	public void configure(Binder binder)
 	{
-		binder.bind(DataStoreReader.class).to(HttpDataStoreReader.class);
+		binder.bind(DataStoreReader.class).to(CachingDataStoreReader.class);
 		super.configure(binder);
 	}
 
@@ -120,15 +113,11 @@ public class TasksTrackerPlugin extends Plugin
 	@Override
 	protected void startUp()
 	{
-		try
-		{
-			String taskTypeJsonName = config.taskTypeJsonName();
-			taskService.setTaskType(taskTypeJsonName);
-		}
-		catch (Exception ex)
-		{
+		dataStoreExecutor.start();
+		loadTaskTypes().exceptionally(ex -> {
 			log.error("error setting task type in startUp", ex);
-		}
+			return false;
+		});
 
 		forceUpdateVarpsFlag = false;
 
@@ -156,6 +145,8 @@ public class TasksTrackerPlugin extends Plugin
 	@Override
 	protected void shutDown()
 	{
+		trackerConfigStore.flush();
+		dataStoreExecutor.shutdown();
 		pluginPanel = null;
 		taskService.clearTaskTypes();
 		clientToolbar.removeNavigation(navButton);
@@ -176,7 +167,7 @@ public class TasksTrackerPlugin extends Plugin
 			{
 				int varpId = Integer.parseInt(args[0]);
 				log.debug("Processing varpId " + varpId);
-				processVarpAndUpdateTasks(varpId);
+				processVarpsAndUpdateTasks(Collections.singleton(varpId), true);
 			}
 			catch (NumberFormatException e)
 			{
@@ -198,7 +189,7 @@ public class TasksTrackerPlugin extends Plugin
 		{
 			return;
 		}
-		varpIdsToUpdate.add(varbitChanged.getVarpId());
+		varpUpdateScheduler.add(varpId);
 	}
 
 	@Subscribe
@@ -209,6 +200,7 @@ public class TasksTrackerPlugin extends Plugin
 			return;
 		}
 		log.debug("onConfigChanged {} {}", configChanged.getKey(), configChanged.getNewValue());
+		filterService.compileFilterState();
 		if (configChanged.getKey().equals("untrackUponCompletion") && config.untrackUponCompletion())
 		{
 			forceVarpUpdate();
@@ -218,6 +210,16 @@ public class TasksTrackerPlugin extends Plugin
 		{
 			SwingUtilities.invokeLater(pluginPanel::redraw);
 		}
+
+		if (configChanged.getKey().equals("fuzzySearch") && filterService.getSearchText() != null)
+		{
+			filterService.setSearchTextAsync(filterService.getSearchText(), this::applySearch);
+		}
+
+		if (configChanged.getKey().equals("orderSearchByRelevance"))
+		{
+			SwingUtilities.invokeLater(() -> pluginPanel.taskListPanel.applyOrder(true));
+		}
 	}
 
 	@Subscribe
@@ -256,55 +258,50 @@ public class TasksTrackerPlugin extends Plugin
 			log.debug("forceUpdateVarpsFlag game tick");
 			trackerConfigStore.loadCurrentTaskTypeFromConfig();
 			forceVarpUpdate();
+			updateSkillQualification();
 			SwingUtilities.invokeLater(() -> pluginPanel.redraw());
 			forceUpdateVarpsFlag = false;
 			taskService.setTaskTypeChanged(false);
 		}
 
-		// Flush throttled varp updates
-		long currentTimeEpoch = System.currentTimeMillis();
-		if (currentTimeEpoch - lastVarpUpdate > VARP_UPDATE_THROTTLE_DELAY_MS)
-		{
-			flushVarpUpdates(varpIdsToUpdate);
-			varpIdsToUpdate = new HashSet<>();
-			lastVarpUpdate = currentTimeEpoch;
-		}
+		flushVarpUpdates(varpUpdateScheduler.onGameTick());
 	}
 
 	@Subscribe
 	public void onStatChanged(StatChanged statChanged)
 	{
-		// @todo deprecate one of these, we don't need to track player skills twice.
-		// Cache current player skills
 		int[] newSkills = client.getRealSkillLevels();
-		boolean changed = !Arrays.equals(playerSkills, newSkills);
-		if (changed)
+		if (Arrays.equals(playerSkills, newSkills))
 		{
-			playerSkills = client.getRealSkillLevels();
+			return;
 		}
+		boolean isFirstSkills = playerSkills == null;
+		playerSkills = newSkills;
 
-		final Skill skill = statChanged.getSkill();
-
-		// Modified from m0bilebtw's modification from Nightfirecat's virtual level ups plugin
-		final int xpAfter = client.getSkillExperience(skill);
-		final int levelAfter = Experience.getLevelForXp(xpAfter);
-		final int xpBefore = oldExperience.getOrDefault(skill, -1);
-		final int levelBefore = xpBefore == -1 ? -1 : Experience.getLevelForXp(xpBefore);
-
-		oldExperience.put(skill, xpAfter);
-
-		// Do not proceed if any of the following are true:
-		//  * xpBefore == -1              (don't fire when first setting new known value)
-		//  * xpAfter <= xpBefore         (do not allow 200m -> 200m exp drops)
-		//  * levelBefore >= levelAfter   (stop if we're not actually reaching a new level)
-		//  * levelAfter > MAX_REAL_LEVEL (stop if above 99)
-		if (xpBefore == -1 || xpAfter <= xpBefore || levelBefore >= levelAfter || levelAfter > Experience.MAX_REAL_LEVEL)
+		List<TaskFromStruct> changedTasks = updateSkillQualification();
+		if (isFirstSkills)
 		{
-			return;
+			// Task colors are only shown once skills are known
+			pluginPanel.requestRefresh();
 		}
+		else if (!changedTasks.isEmpty())
+		{
+			pluginPanel.requestRefresh(changedTasks);
+		}
+	}
 
-		// If we get here, 'skill' was leveled up!
-		SwingUtilities.invokeLater(() -> pluginPanel.taskListPanel.refreshTaskPanelsWithSkill(skill));
+	/**
+	 * Apply the player's levels to the skill requirements of the current task type
+	 * @return the tasks whose qualification changed
+	 */
+	private List<TaskFromStruct> updateSkillQualification()
+	{
+		TaskSkillIndex skillIndex = taskService.getSkillIndex();
+		if (playerSkills == null || skillIndex == null)
+		{
+			return Collections.emptyList();
+		}
+		return skillIndex.update(playerSkills);
 	}
 
 	@Subscribe
@@ -319,30 +316,48 @@ public class TasksTrackerPlugin extends Plugin
 
 	public void refresh()
 	{
-		SwingUtilities.invokeLater(() -> pluginPanel.refresh(null));
+		pluginPanel.requestRefresh();
+	}
+
+	/**
+	 * Show the result of a task search, must be called on the EDT
+	 */
+	public void applySearch()
+	{
+		pluginPanel.taskListPanel.applyOrder(true);
+		pluginPanel.refresh(null);
 	}
 
     public void reloadTaskType() {
         taskService.clearTaskTypes();
         filterService.clearFilterConfigs();
-        try {
-            String taskTypeJsonName = config.taskTypeJsonName();
-            taskService.setTaskType(taskTypeJsonName).thenAccept(isSet -> {
-                if (!isSet) {
-                    return;
-                }
-                SwingUtilities.invokeLater(() ->
-                {
-                    pluginPanel.redraw();
-                    pluginPanel.refresh(null);
-                });
+        loadTaskTypes().thenAccept(isSet -> {
+            if (!isSet) {
+                return;
+            }
+            SwingUtilities.invokeLater(() ->
+            {
+                pluginPanel.redraw();
+                pluginPanel.refresh(null);
             });
-        } catch (Exception ex) {
+        }).exceptionally(ex -> {
             log.error("error setting task type in reload", ex);
-        }
-
+            return null;
+        });
     }
 
+	/**
+	 * Fetch task types and global filter configs concurrently, activate the configured task type,
+	 * then prefetch the remaining task types in the background.
+	 */
+	private CompletableFuture<Boolean> loadTaskTypes()
+	{
+		return taskService.loadTaskTypesAsync()
+			.thenCombine(filterService.loadFilterConfigsAsync(), (taskTypes, filterConfigs) -> taskTypes)
+			.thenCompose(taskTypes -> taskService.setTaskType(config.taskTypeJsonName()))
+			.whenComplete((isSet, ex) -> taskService.prefetchTaskDefinitions());
+	}
+
 	public void saveCurrentTaskTypeData()
 	{
 		log.debug("saveCurrentTaskTypeData");
@@ -397,12 +412,12 @@ public class TasksTrackerPlugin extends Plugin
 
 		if (selectedValue.equals(JOptionPane.YES_OPTION))
 		{
-			HashMap<Integer, TaskFromStruct> tasksById = new HashMap<>();
-			taskService.getTasks().forEach((task) -> tasksById.put(task.getIntParam("id"), task));
-
 			reldoImport.getTasks().forEach((id, reldoTaskSave) -> {
-				TaskFromStruct task = tasksById.get(id);
-				task.loadReldoSave(reldoTaskSave);
+				TaskFromStruct task = taskService.getTaskById(id);
+				if (task != null)
+				{
+					task.loadReldoSave(reldoTaskSave);
+				}
 			});
 
 			trackerConfigStore.saveCurrentTaskTypeData();
@@ -443,79 +458,40 @@ public class TasksTrackerPlugin extends Plugin
 	private void forceVarpUpdate()
 	{
 		log.debug("forceVarpUpdate");
-		processVarpAndUpdateTasks(null).thenAccept((processed) -> {
-			if (processed)
-			{
-				log.debug("forceVarpUpdate processed complete, saving");
-				saveCurrentTaskTypeData();
-			}
-		});
+		varpUpdateScheduler.clear();
+		processVarpsAndUpdateTasks(null, true);
 	}
 
 	private void flushVarpUpdates(Set<Integer> varpIds)
 	{
-		log.debug("Flushing throttled varp updates {}", varpIds);
-		varpIds.forEach((id) -> processVarpAndUpdateTasks(id).thenAccept(processed -> {
-			if (processed)
-			{
-				log.debug("flushVarpUpdates processed complete, saving");
-				saveCurrentTaskTypeData();
-			}
-		}));
+		if (varpIds.isEmpty())
+		{
+			return;
+		}
+		log.debug("Flushing coalesced varp updates {}", varpIds);
+		// Called on the client thread, so the batch is processed before the scheduler reuses the set
+		processVarpsAndUpdateTasks(varpIds, false);
 	}
 
-	private CompletableFuture<Boolean> processTaskStatus(TaskFromStruct task)
+	/**
+	 * Update task completion status from task varps, then refresh the panel and save once if anything changed.
+	 * If no varpIds are specified, it updates all tasks in the current task type
+	 * @param varpIds varp ids to update (optional)
+	 * @param force re-evaluate every task of the varps rather than only tasks whose bit changed
+	 */
+	private void processVarpsAndUpdateTasks(@Nullable Set<Integer> varpIds, boolean force)
 	{
-		CompletableFuture<Boolean> future = new CompletableFuture<>();
+		log.debug("processVarpsAndUpdateTasks: " + (varpIds != null ? varpIds : "all"));
 		clientThread.invoke(() -> {
-			int taskId =  task.getIntParam("id");
-			int varbitIndex = taskId / 32;
-			int bitIndex = taskId % 32;
-			try
+			List<TaskFromStruct> changedTasks = taskCompletionProcessor.process(varpIds, force);
+			if (changedTasks.isEmpty())
 			{
-				int varpId = task.getTaskType().getTaskVarps().get(varbitIndex);
-				BigInteger varpValue = BigInteger.valueOf(client.getVarpValue(varpId));
-				boolean isTaskCompleted = varpValue.testBit(bitIndex);
-				task.setCompleted(isTaskCompleted);
-				if (isTaskCompleted && config.untrackUponCompletion())
-				{
-					task.setTracked(false);
-				}
-				log.debug("process taskFromStruct {} ({}) {}", task.getStringParam("name"), task.getIntParam("id"), isTaskCompleted);
-				SwingUtilities.invokeLater(() -> pluginPanel.refresh(task));
-				future.complete(isTaskCompleted);
-			}
-			catch (Exception ex)
-			{
-				log.error("Error processing task status {}", taskId, ex);
-				future.completeExceptionally(ex);
+				return;
 			}
+			log.debug("{} tasks changed, saving", changedTasks.size());
+			pluginPanel.requestRefresh(changedTasks);
+			saveCurrentTaskTypeData();
 		});
-		return future;
-	}
-
-	/**
-	 * Update task completion status. If no varpId is specified, it updates all tasks in the current task type
-	 * @param varpId varp id to update (optional)
-	 * @return An observable that emits true if all tasks were processed
-	 */
-	private CompletableFuture<Boolean> processVarpAndUpdateTasks(@Nullable Integer varpId)
-	{
-		log.info("processVarpAndUpdateTasks: " + (varpId != null ? varpId : "all"));
-
-		List<TaskFromStruct> tasks = varpId != null ?
-			taskService.getTasksFromVarpId(varpId) :
-			taskService.getTasks();
-
-		List<CompletableFuture<Boolean>> taskFutures = new ArrayList<>();
-		for (TaskFromStruct task : tasks)
-		{
-			CompletableFuture<Boolean> taskFuture = processTaskStatus(task);
-			taskFutures.add(taskFuture);
-		}
-
-		CompletableFuture<Void> allTasksFuture = CompletableFuture.allOf(taskFutures.toArray(new CompletableFuture[0]));
-		return allTasksFuture.thenApply(v -> true);
 	}
 
 	private String getCurrentTaskTypeExportJson()
@@ -87,7 +87,7 @@ public class Export
 			{
 				continue;
 			}
-			taskSavesById.put(String.valueOf(task.getIntParam("id")), task.getSaveData());
+			taskSavesById.put(String.valueOf(task.getId()), task.getSaveData());
 		}
 		return taskSavesById;
 	}
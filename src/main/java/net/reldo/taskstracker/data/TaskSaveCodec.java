@@ -0,0 +1,184 @@
+package net.reldo.taskstracker.data;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import net.reldo.taskstracker.data.task.ConfigTaskSave;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+
+/**
+ * Compact encoding of task progress for the profile config: "b1:" followed by base64 of
+ * <ul>
+ *     <li>varint size, one more than the highest task id with any progress</li>
+ *     <li>completed, tracked and ignored bitsets of size bits, indexed by task id</li>
+ *     <li>for each bitset in the same order, the timestamps of its set bits in task id order as zigzag varints of the
+ *     delta from the previous timestamp</li>
+ * </ul>
+ * Legacy saves are a json object keyed by struct id.
+ */
+public class TaskSaveCodec
+{
+	public static final String PREFIX = "b1:";
+
+	private static final int COMPLETED = 0;
+	private static final int TRACKED = 1;
+	private static final int IGNORED = 2;
+
+	public static boolean isEncoded(String configValue)
+	{
+		return configValue.startsWith(PREFIX);
+	}
+
+	public static String encode(Collection<TaskFromStruct> tasks)
+	{
+		int size = 0;
+		for (TaskFromStruct task : tasks)
+		{
+			if (hasProgress(task))
+			{
+				size = Math.max(size, task.getId() + 1);
+			}
+		}
+
+		long[][] dates = new long[3][size];
+		for (TaskFromStruct task : tasks)
+		{
+			if (hasProgress(task))
+			{
+				dates[COMPLETED][task.getId()] = task.getCompletedOn();
+				dates[TRACKED][task.getId()] = task.getTrackedOn();
+				dates[IGNORED][task.getId()] = task.getIgnoredOn();
+			}
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		putVarint(out, size);
+		for (long[] fieldDates : dates)
+		{
+			byte[] bits = new byte[(size + 7) / 8];
+			for (int taskId = 0; taskId < size; taskId++)
+			{
+				if (fieldDates[taskId] != 0)
+				{
+					bits[taskId >> 3] |= 1 << (taskId & 7);
+				}
+			}
+			out.write(bits, 0, bits.length);
+		}
+		for (long[] fieldDates : dates)
+		{
+			long previous = 0;
+			for (long date : fieldDates)
+			{
+				if (date != 0)
+				{
+					putVarint(out, zigzag(date - previous));
+					previous = date;
+				}
+			}
+		}
+		return PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+	}
+
+	/**
+	 * @return the progress of every task with any, identified by {@link ConfigTaskSave#taskId}
+	 * @throws IllegalArgumentException if the value is not a valid encoding
+	 */
+	public static List<ConfigTaskSave> decode(String configValue)
+	{
+		if (!isEncoded(configValue))
+		{
+			throw new IllegalArgumentException("unsupported task save encoding");
+		}
+
+		try
+		{
+			ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(configValue.substring(PREFIX.length())));
+			// Checked before narrowing, so a corrupt size can not wrap into a valid one
+			long encodedSize = getVarint(buffer);
+			if (encodedSize < 0 || encodedSize > buffer.remaining() * 8L)
+			{
+				throw new IllegalArgumentException("invalid task save size " + encodedSize);
+			}
+			int size = (int) encodedSize;
+
+			byte[][] bits = new byte[3][(size + 7) / 8];
+			for (byte[] fieldBits : bits)
+			{
+				buffer.get(fieldBits);
+			}
+			long[][] dates = new long[3][size];
+			for (int field = 0; field < 3; field++)
+			{
+				long previous = 0;
+				for (int taskId = 0; taskId < size; taskId++)
+				{
+					if ((bits[field][taskId >> 3] & (1 << (taskId & 7))) != 0)
+					{
+						previous += unzigzag(getVarint(buffer));
+						dates[field][taskId] = previous;
+					}
+				}
+			}
+
+			List<ConfigTaskSave> saves = new ArrayList<>();
+			for (int taskId = 0; taskId < size; taskId++)
+			{
+				if (dates[COMPLETED][taskId] != 0 || dates[TRACKED][taskId] != 0 || dates[IGNORED][taskId] != 0)
+				{
+					saves.add(new ConfigTaskSave(taskId, dates[COMPLETED][taskId], dates[TRACKED][taskId], dates[IGNORED][taskId]));
+				}
+			}
+			return saves;
+		}
+		catch (BufferUnderflowException ex)
+		{
+			throw new IllegalArgumentException("truncated task save", ex);
+		}
+	}
+
+	private static boolean hasProgress(TaskFromStruct task)
+	{
+		// Tasks without an id can not be identified in the encoding
+		return task.getId() >= 0 && (task.getCompletedOn() != 0 || task.getTrackedOn() != 0 || task.getIgnoredOn() != 0);
+	}
+
+	private static void putVarint(ByteArrayOutputStream out, long value)
+	{
+		while ((value & ~0x7FL) != 0)
+		{
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long getVarint(ByteBuffer buffer)
+	{
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7)
+		{
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("malformed varint");
+	}
+
+	private static long zigzag(long value)
+	{
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
@@ -5,8 +5,14 @@ import com.google.gson.JsonParseException;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +20,7 @@ import net.reldo.taskstracker.TasksTrackerPlugin;
 import net.reldo.taskstracker.data.task.TaskFromStruct;
 import net.reldo.taskstracker.data.task.ConfigTaskSave;
 import net.reldo.taskstracker.data.task.TaskService;
+import net.reldo.taskstracker.data.task.TaskSet;
 import net.reldo.taskstracker.data.task.TaskType;
 import net.runelite.client.config.ConfigManager;
 
@@ -21,15 +28,27 @@ import net.runelite.client.config.ConfigManager;
 @Slf4j
 public class TrackerConfigStore
 {
+	// Legacy json saves, left in place for older plugin versions, which wipe saves they cannot parse
 	public static final String CONFIG_TASKS_PREFIX = "tasks";
+	// Saves in the compact encoding
+	public static final String CONFIG_ENCODED_TASKS_PREFIX = "tasks2";
 	public static final String CONFIG_GROUP_PREFIX_SEPARATOR = "-";
 	public static final String CONFIG_GROUP_NAME = TasksTrackerPlugin.CONFIG_GROUP_NAME;
 
+	private static final long SAVE_DEBOUNCE_MS = 500;
+	private static final long SAVE_MAX_DELAY_MS = 3000;
+
 	private final Gson customGson;
+	private final Map<String, PendingSave> pendingSaves = new ConcurrentHashMap<>();
+	private final AtomicInteger saveCount = new AtomicInteger();
+	private final AtomicLong bytesWritten = new AtomicLong();
+	private final AtomicLong totalSaveNanos = new AtomicLong();
 	@Inject
 	private TaskService taskService;
 	@Inject
 	private ConfigManager configManager;
+	@Inject
+	private ScheduledExecutorService executor;
 
 	@Inject
 	public TrackerConfigStore(Gson gson)
@@ -42,53 +61,195 @@ public class TrackerConfigStore
 
 	public void loadCurrentTaskTypeFromConfig()
 	{
-		TaskType currentTaskType = taskService.getCurrentTaskType();
+		// The save is applied to the loaded tasks, so it is read for their task type rather than the selected one
+		TaskSet taskSet = taskService.getTaskSet();
+		TaskType currentTaskType = taskSet.getTaskType();
 		if (currentTaskType == null)
 		{
 			log.debug("loadTaskTypeFromConfig type is null, skipping");
 			return;
 		}
 		log.debug("loadTaskTypeFromConfig {}", currentTaskType.getName());
-		String configKey = getCurrentTaskTypeConfigKey();
-		String configJson = configManager.getRSProfileConfiguration(CONFIG_GROUP_NAME, configKey);
-		if (configJson == null)
+		String configKey = getConfigKey(currentTaskType);
+		// A save still pending for this task type is newer than the config
+		flush();
+		String configValue = configManager.getRSProfileConfiguration(CONFIG_GROUP_NAME, configKey);
+		if (configValue != null)
+		{
+			try
+			{
+				taskService.applySave(currentTaskType, TaskSaveCodec.decode(configValue));
+				taskSet.getTasks().forEach(TaskFromStruct::clearDirty);
+				return;
+			}
+			catch (IllegalArgumentException ex)
+			{
+				log.error("{} {} save invalid. wiping saved data", CONFIG_GROUP_NAME, configKey, ex);
+				configManager.unsetRSProfileConfiguration(CONFIG_GROUP_NAME, configKey);
+			}
+		}
+
+		String legacyConfigKey = getLegacyConfigKey(currentTaskType);
+		String legacyConfigValue = configManager.getRSProfileConfiguration(CONFIG_GROUP_NAME, legacyConfigKey);
+		if (legacyConfigValue == null)
 		{
 			log.debug("No save information for task type {}, not applying save", currentTaskType.getName());
 			return;
 		}
 
-		Type deserializeType = TypeToken.getParameterized(HashMap.class, Integer.class, ConfigTaskSave.class).getType();
 		try
 		{
-			HashMap<Integer, ConfigTaskSave> saveData = customGson.fromJson(configJson, deserializeType);
-			taskService.applySave(currentTaskType, saveData);
+			if (TaskSaveCodec.isEncoded(legacyConfigValue))
+			{
+				taskService.applySave(currentTaskType, TaskSaveCodec.decode(legacyConfigValue));
+			}
+			else
+			{
+				Type deserializeType = TypeToken.getParameterized(HashMap.class, Integer.class, ConfigTaskSave.class).getType();
+				HashMap<Integer, ConfigTaskSave> saveData = customGson.fromJson(legacyConfigValue, deserializeType);
+				taskService.applySave(currentTaskType, saveData);
+			}
+			// Loaded tasks are left dirty, so the save writes them under the new key in the compact encoding
+			log.debug("migrating {} {} to {}", CONFIG_GROUP_NAME, legacyConfigKey, configKey);
+			saveCurrentTaskTypeData();
+		}
+		catch (JsonParseException | IllegalArgumentException ex)
+		{
+			// Never wiped, the legacy save may still be readable by the plugin version that wrote it
+			log.error("{} {} save invalid. ignoring saved data", CONFIG_GROUP_NAME, legacyConfigKey, ex);
+		}
+	}
+
+	/**
+	 * Schedule a save of the current task type. Saves requested in quick succession are coalesced into one write,
+	 * serialized on the executor, which only happens if a task changed since the last write.
+	 */
+	public synchronized void saveCurrentTaskTypeData()
+	{
+		// Tasks and the key they are saved under come from one snapshot, even while another task type loads
+		TaskSet taskSet = taskService.getTaskSet();
+		if (taskSet.getTaskType() == null)
+		{
+			return;
+		}
+		// The profile is captured now, so a pending save cannot land in a profile switched to before it is written
+		String rsProfileKey = configManager.getRSProfileKey();
+		if (rsProfileKey == null)
+		{
+			return;
+		}
+		String configKey = getConfigKey(taskSet.getTaskType());
+		String pendingKey = rsProfileKey + "." + configKey;
+		long now = System.currentTimeMillis();
+		PendingSave pendingSave = pendingSaves.get(pendingKey);
+		if (pendingSave == null)
+		{
+			pendingSave = new PendingSave(pendingKey, rsProfileKey, configKey, taskSet.getTasks(), now);
+			pendingSaves.put(pendingKey, pendingSave);
+		}
+		else if (now - pendingSave.requestedAt >= SAVE_MAX_DELAY_MS || !pendingSave.future.cancel(false))
+		{
+			// Held back long enough, or already writing; let the scheduled write pick the change up
+			return;
+		}
+		PendingSave save = pendingSave;
+		save.future = executor.schedule(() -> write(save), SAVE_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Write any pending saves immediately on the calling thread
+	 */
+	public synchronized void flush()
+	{
+		for (PendingSave pendingSave : pendingSaves.values())
+		{
+			pendingSave.future.cancel(false);
+			write(pendingSave);
+		}
+	}
+
+	public int getSaveCount()
+	{
+		return saveCount.get();
+	}
+
+	public long getBytesWritten()
+	{
+		return bytesWritten.get();
+	}
+
+	public long getTotalSaveMs()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(totalSaveNanos.get());
+	}
+
+	public String getStatsSummary()
+	{
+		int saves = saveCount.get();
+		return String.format("saves=%d bytes=%d avgSaveMs=%.2f",
+			saves, bytesWritten.get(), saves == 0 ? 0 : totalSaveNanos.get() / 1_000_000.0 / saves);
+	}
+
+	private void write(PendingSave pendingSave)
+	{
+		if (!pendingSaves.remove(pendingSave.pendingKey, pendingSave))
+		{
+			// Already written by another thread
+			return;
 		}
-		catch (JsonParseException ex)
+
+		long start = System.nanoTime();
+		boolean isDirty = false;
+		for (TaskFromStruct task : pendingSave.tasks)
 		{
-			log.error("{} {} json invalid. wiping saved data", CONFIG_GROUP_NAME, configKey, ex);
-			configManager.unsetRSProfileConfiguration(CONFIG_GROUP_NAME, configKey);
+			// Cleared before encoding, so a change made while encoding marks the task for the next save
+			if (task.isDirty())
+			{
+				isDirty = true;
+				task.clearDirty();
+			}
 		}
+		if (!isDirty)
+		{
+			log.debug("skipping save of {}, no tasks changed", pendingSave.configKey);
+			return;
+		}
+
+		String configValue = TaskSaveCodec.encode(pendingSave.tasks);
+		configManager.setConfiguration(CONFIG_GROUP_NAME, pendingSave.rsProfileKey, pendingSave.configKey, configValue);
+
+		saveCount.incrementAndGet();
+		bytesWritten.addAndGet(configValue.length());
+		totalSaveNanos.addAndGet(System.nanoTime() - start);
+		log.debug("saved {} in {}ms ({})", pendingSave.configKey, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), getStatsSummary());
+	}
+
+	private static String getConfigKey(TaskType taskType)
+	{
+		return CONFIG_ENCODED_TASKS_PREFIX + CONFIG_GROUP_PREFIX_SEPARATOR + taskType.getTaskJsonName();
 	}
 
-	public void saveCurrentTaskTypeData()
+	private static String getLegacyConfigKey(TaskType taskType)
 	{
-		log.debug("saveTaskTypeToConfig");
-		Map<Integer, ConfigTaskSave> saveDataByStructId = taskService.getTasks().stream()
-			.filter(task -> task.getCompletedOn() != 0 || task.getIgnoredOn() != 0 || task.getTrackedOn() != 0)
-			.collect(Collectors.toMap(
-				TaskFromStruct::getStructId,
-				TaskFromStruct::getSaveData,
-				(existing, replacement) -> existing,
-				HashMap::new
-			));
-
-		String configValue = this.customGson.toJson(saveDataByStructId);
-		String configKey = CONFIG_TASKS_PREFIX + CONFIG_GROUP_PREFIX_SEPARATOR + taskService.getCurrentTaskType().getTaskJsonName();
-		configManager.setRSProfileConfiguration(CONFIG_GROUP_NAME, configKey, configValue);
+		return CONFIG_TASKS_PREFIX + CONFIG_GROUP_PREFIX_SEPARATOR + taskType.getTaskJsonName();
 	}
 
-	private String getCurrentTaskTypeConfigKey()
+	private static class PendingSave
 	{
-		return CONFIG_TASKS_PREFIX + CONFIG_GROUP_PREFIX_SEPARATOR + taskService.getCurrentTaskType().getTaskJsonName();
+		private final String pendingKey;
+		private final String rsProfileKey;
+		private final String configKey;
+		private final List<TaskFromStruct> tasks;
+		private final long requestedAt;
+		private ScheduledFuture<?> future;
+
+		private PendingSave(String pendingKey, String rsProfileKey, String configKey, List<TaskFromStruct> tasks, long requestedAt)
+		{
+			this.pendingKey = pendingKey;
+			this.rsProfileKey = rsProfileKey;
+			this.configKey = configKey;
+			this.tasks = tasks;
+			this.requestedAt = requestedAt;
+		}
 	}
 }
@@ -0,0 +1,76 @@
+package net.reldo.taskstracker.data.jsondatastore;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.inject.Singleton;
+
+/**
+ * Executor for json store disk I/O and deserialization, so neither the client thread nor the EDT ever waits on the
+ * data store. Prefetches run one at a time on a separate low priority thread, so they never hold up a load.
+ */
+@Singleton
+public class DataStoreExecutor implements Executor
+{
+	private static final int THREAD_COUNT = 2;
+
+	// Replaced by start() once shut down, since the singleton outlives a plugin restart
+	private volatile ExecutorService executorService = createExecutorService();
+	private volatile ExecutorService prefetchExecutorService = createPrefetchExecutorService();
+
+	@Override
+	public void execute(Runnable command)
+	{
+		executorService.execute(command);
+	}
+
+	/**
+	 * @return the executor prefetches run on, one at a time
+	 */
+	public Executor getPrefetchExecutor()
+	{
+		return prefetchExecutorService;
+	}
+
+	/**
+	 * Start new threads when the plugin starts again after {@link #shutdown()}.
+	 */
+	public synchronized void start()
+	{
+		if (executorService.isShutdown())
+		{
+			executorService = createExecutorService();
+		}
+		if (prefetchExecutorService.isShutdown())
+		{
+			prefetchExecutorService = createPrefetchExecutorService();
+		}
+	}
+
+	/**
+	 * Stop the threads when the plugin stops. Prefetches are abandoned, queued loads and writes still complete.
+	 */
+	public synchronized void shutdown()
+	{
+		prefetchExecutorService.shutdownNow();
+		executorService.shutdown();
+	}
+
+	private static ExecutorService createExecutorService()
+	{
+		return Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactoryBuilder()
+			.setNameFormat("tasks-tracker-io-%d")
+			.setDaemon(true)
+			.build());
+	}
+
+	private static ExecutorService createPrefetchExecutorService()
+	{
+		return Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+			.setNameFormat("tasks-tracker-prefetch-%d")
+			.setDaemon(true)
+			.setPriority(Thread.MIN_PRIORITY)
+			.build());
+	}
+}
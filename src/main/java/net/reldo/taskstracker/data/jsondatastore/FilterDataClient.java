@@ -9,6 +9,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +26,7 @@ public class FilterDataClient
     @Inject	private OkHttpClient okHttpClient;
     @Inject private Gson gson;
     @Inject private DataStoreReader dataStoreReader;
+    @Inject private DataStoreExecutor executor;
 
     public FilterDataClient()
     {
@@ -33,8 +36,29 @@ public class FilterDataClient
     public HashMap<String, FilterConfig> getFilterConfigs() throws Exception
     {
         log.debug("get filter configs");
-        try(InputStream stream = this.dataStoreReader.readFilterConfigs(this.manifestClient.getManifest().filterMetadata);
-            InputStreamReader responseReader = new InputStreamReader(stream, StandardCharsets.UTF_8))
+        return parseFilterConfigs(this.dataStoreReader.readFilterConfigs(this.manifestClient.getManifest().filterMetadata));
+    }
+
+    public CompletableFuture<HashMap<String, FilterConfig>> getFilterConfigsAsync()
+    {
+        log.debug("get filter configs async");
+        return this.manifestClient.getManifestAsync()
+            .thenCompose(manifest -> this.dataStoreReader.readFilterConfigsAsync(manifest.filterMetadata))
+            .thenApplyAsync(stream -> {
+                try
+                {
+                    return parseFilterConfigs(stream);
+                }
+                catch (Exception ex)
+                {
+                    throw new CompletionException(ex);
+                }
+            }, executor);
+    }
+
+    private HashMap<String, FilterConfig> parseFilterConfigs(InputStream stream) throws Exception
+    {
+        try(InputStreamReader responseReader = new InputStreamReader(stream, StandardCharsets.UTF_8))
         {
             Type listType = TypeToken.getParameterized(ArrayList.class, FilterConfig.class).getType();
 
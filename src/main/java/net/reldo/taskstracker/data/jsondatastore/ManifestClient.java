@@ -1,12 +1,16 @@
 package net.reldo.taskstracker.data.jsondatastore;
 
+import com.google.common.hash.Hashing;
 import com.google.common.io.CharStreams;
 import com.google.gson.Gson;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.reldo.taskstracker.data.jsondatastore.reader.DataStoreReader;
 import net.reldo.taskstracker.data.jsondatastore.types.Manifest;
@@ -19,8 +23,12 @@ public class ManifestClient
 	@Inject	private OkHttpClient okHttpClient;
 	@Inject private Gson gson;
 	@Inject private DataStoreReader dataStoreReader;
+	@Inject private DataStoreExecutor executor;
 
 	private static Manifest _manifest = null;
+	@Getter
+	private String manifestHash = null;
+	private CompletableFuture<Manifest> _manifestFuture = null;
 
 	public ManifestClient()
 	{
@@ -32,13 +40,38 @@ public class ManifestClient
 		if (_manifest != null) {
 			return _manifest;
 		}
-		try(InputStream stream = this.dataStoreReader.readManifestData();
-			InputStreamReader responseReader = new InputStreamReader(stream, StandardCharsets.UTF_8))
+		return getManifestAsync().get();
+	}
+
+	/**
+	 * Fetches the manifest once; concurrent callers share the in-flight request.
+	 */
+	public synchronized CompletableFuture<Manifest> getManifestAsync()
+	{
+		if (_manifest != null)
+		{
+			return CompletableFuture.completedFuture(_manifest);
+		}
+		if (_manifestFuture == null || _manifestFuture.isCompletedExceptionally())
+		{
+			_manifestFuture = dataStoreReader.readManifestDataAsync().thenApplyAsync(this::parseManifest, executor);
+		}
+		return _manifestFuture;
+	}
+
+	private Manifest parseManifest(InputStream stream)
+	{
+		try (InputStreamReader responseReader = new InputStreamReader(stream, StandardCharsets.UTF_8))
 		{
 			String manifestJson = CharStreams.toString(responseReader); // ew, why not a stream? not working...
+			manifestHash = Hashing.sha256().hashString(manifestJson, StandardCharsets.UTF_8).toString();
 			_manifest = this.gson.fromJson(manifestJson, Manifest.class);
 			log.debug("_manifest = " + _manifest);
 			return _manifest;
 		}
+		catch (Exception ex)
+		{
+			throw new CompletionException(ex);
+		}
 	}
 }
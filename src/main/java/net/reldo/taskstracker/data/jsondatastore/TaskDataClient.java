@@ -2,6 +2,7 @@ package net.reldo.taskstracker.data.jsondatastore;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
@@ -9,6 +10,11 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
@@ -29,18 +35,111 @@ public class TaskDataClient
 	@Inject	private OkHttpClient okHttpClient;
 	@Inject private Gson gson;
 	@Inject private DataStoreReader dataStoreReader;
+	@Inject private DataStoreExecutor executor;
 	@Inject private Client client;
 	@Inject private ClientThread clientThread;
 	@Inject private SpriteManager spriteManager;
 
+	private final AtomicInteger prefetchGeneration = new AtomicInteger();
+
 	public TaskDataClient()
 	{
 		log.debug("init task data client");
 	}
 
 	public HashMap<String, TaskType> getTaskTypes() throws Exception {
-		try (InputStream stream = this.dataStoreReader.readTaskTypes(this.manifestClient.getManifest().taskTypeMetadata);
-			 InputStreamReader responseReader = new InputStreamReader(stream, StandardCharsets.UTF_8))
+		return parseTaskTypes(this.dataStoreReader.readTaskTypes(this.manifestClient.getManifest().taskTypeMetadata));
+	}
+
+	public CompletableFuture<HashMap<String, TaskType>> getTaskTypesAsync()
+	{
+		return this.manifestClient.getManifestAsync()
+			.thenCompose(manifest -> this.dataStoreReader.readTaskTypesAsync(manifest.taskTypeMetadata))
+			.thenApplyAsync(stream -> {
+				try
+				{
+					return parseTaskTypes(stream);
+				}
+				catch (Exception ex)
+				{
+					throw new CompletionException(ex);
+				}
+			}, executor);
+	}
+
+	/**
+	 * Streams the task definitions of a task file to the consumer one at a time, as they are read from the data store.
+	 * The consumer is called on the data store executor. Once isCancelled returns true, checked between definitions,
+	 * reading stops and the stream is closed without reading the rest of the file.
+	 *
+	 * @return future resolving to the number of task definitions read
+	 */
+	public CompletableFuture<Integer> streamTaskDefinitionsAsync(String jsonFilename, BooleanSupplier isCancelled, Consumer<TaskDefinition> consumer)
+	{
+		return this.dataStoreReader.readTasksAsync(jsonFilename).thenApplyAsync(stream -> {
+			try (JsonReader jsonReader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8)))
+			{
+				int count = 0;
+				jsonReader.beginArray();
+				while (jsonReader.hasNext())
+				{
+					if (isCancelled.getAsBoolean())
+					{
+						log.debug("stopped reading {} after {} task definitions, cancelled", jsonFilename, count);
+						return count;
+					}
+					TaskDefinition taskDefinition = this.gson.fromJson(jsonReader, TaskDefinition.class);
+					consumer.accept(taskDefinition);
+					count++;
+				}
+				jsonReader.endArray();
+				return count;
+			}
+			catch (Exception ex)
+			{
+				throw new CompletionException(ex);
+			}
+		}, executor);
+	}
+
+	/**
+	 * Reads a task file without parsing it, so the data store reader can cache it ahead of use. Prefetches run one at a
+	 * time on the prefetch executor, until {@link #cancelPrefetches()} is called.
+	 */
+	public CompletableFuture<Void> prefetchTaskDefinitionsAsync(String jsonFilename)
+	{
+		int generation = prefetchGeneration.get();
+		return CompletableFuture.runAsync(() -> {
+			if (prefetchGeneration.get() != generation)
+			{
+				return;
+			}
+			// Read to the end, as the caching reader only keeps bodies that were read completely
+			try (InputStream body = this.dataStoreReader.readTasks(jsonFilename))
+			{
+				byte[] buffer = new byte[8192];
+				while (prefetchGeneration.get() == generation && body.read(buffer) != -1)
+				{
+				}
+			}
+			catch (Exception ex)
+			{
+				throw new CompletionException(ex);
+			}
+		}, executor.getPrefetchExecutor());
+	}
+
+	/**
+	 * Skip queued prefetches and stop the running one, e.g. so a load does not share the network with them
+	 */
+	public void cancelPrefetches()
+	{
+		prefetchGeneration.incrementAndGet();
+	}
+
+	private HashMap<String, TaskType> parseTaskTypes(InputStream stream) throws Exception
+	{
+		try (InputStreamReader responseReader = new InputStreamReader(stream, StandardCharsets.UTF_8))
 		{
 			Type listType = TypeToken.getParameterized(ArrayList.class, TaskTypeDefinition.class).getType();
 
@@ -54,14 +153,4 @@ public class TaskDataClient
 			return taskTypes;
 		}
 	}
-
-	public List<TaskDefinition> getTaskDefinitions(String jsonFilename) throws Exception
-	{
-		try(InputStream stream = this.dataStoreReader.readTasks(jsonFilename);
-		    InputStreamReader responseReader = new InputStreamReader(stream, StandardCharsets.UTF_8))
-		{
-			Type listType = TypeToken.getParameterized(ArrayList.class, TaskDefinition.class).getType();
-			return this.gson.fromJson(responseReader, listType);
-		}
-	}
 }
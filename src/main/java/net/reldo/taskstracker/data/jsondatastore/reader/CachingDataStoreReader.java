@@ -0,0 +1,478 @@
+package net.reldo.taskstracker.data.jsondatastore.reader;
+
+import com.google.gson.Gson;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.data.jsondatastore.DataStoreExecutor;
+import net.runelite.client.RuneLite;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Wraps {@link HttpDataStoreReader} with an on-disk copy of every json store file.
+ * Fresh copies are served without touching the network, stale copies are revalidated with
+ * If-None-Match / If-Modified-Since, and any cached copy is served if the network is unavailable.
+ */
+@Singleton
+@Slf4j
+public class CachingDataStoreReader implements DataStoreReader
+{
+	public static final File CACHE_DIR = new File(RuneLite.RUNELITE_DIR, "tasks-tracker" + File.separator + "json-store");
+
+	private static final long FRESH_DURATION_MS = 15 * 60 * 1000;
+	private static final String META_EXTENSION = ".meta";
+	/**
+	 * Most unread bytes a closed download may still have to be cached, enough for whitespace after the last token
+	 */
+	private static final int MAX_UNREAD_TAIL = 8192;
+
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger revalidations = new AtomicInteger();
+	private final AtomicInteger staleFallbacks = new AtomicInteger();
+
+	@Inject private HttpDataStoreReader httpDataStoreReader;
+	@Inject private Gson gson;
+	@Inject private DataStoreExecutor executor;
+
+	// Overridden by tests
+	File cacheDir = CACHE_DIR;
+
+	@Override
+	public InputStream readManifestData() throws Exception
+	{
+		return read(HttpDataStoreReader.MANIFEST_PATH);
+	}
+
+	@Override
+	public InputStream readTaskTypes(String taskTypeFilename) throws Exception
+	{
+		return read(taskTypeFilename);
+	}
+
+	@Override
+	public InputStream readTasks(String jsonFilename) throws Exception
+	{
+		return read(HttpDataStoreReader.getTasksPath(jsonFilename));
+	}
+
+	@Override
+	public InputStream readFilterConfigs(String filterFilename) throws Exception
+	{
+		return read(filterFilename);
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readManifestDataAsync()
+	{
+		return readAsync(HttpDataStoreReader.MANIFEST_PATH);
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readTaskTypesAsync(String taskTypeFilename)
+	{
+		return readAsync(taskTypeFilename);
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readTasksAsync(String jsonFilename)
+	{
+		return readAsync(HttpDataStoreReader.getTasksPath(jsonFilename));
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readFilterConfigsAsync(String filterFilename)
+	{
+		return readAsync(filterFilename);
+	}
+
+	@Override
+	public String getTasksVersion(String jsonFilename)
+	{
+		File file = new File(cacheDir, HttpDataStoreReader.getTasksPath(jsonFilename));
+		CacheEntry entry = getEntry(file);
+		if (entry == null)
+		{
+			return null;
+		}
+		if (entry.eTag != null)
+		{
+			return entry.eTag;
+		}
+		return entry.lastModified != null ? entry.lastModified : String.valueOf(file.lastModified());
+	}
+
+	public int getHitCount()
+	{
+		return hits.get();
+	}
+
+	public int getMissCount()
+	{
+		return misses.get();
+	}
+
+	public int getRevalidatedCount()
+	{
+		return revalidations.get();
+	}
+
+	public int getStaleFallbackCount()
+	{
+		return staleFallbacks.get();
+	}
+
+	public String getStatsSummary()
+	{
+		return String.format("hits=%d misses=%d revalidated=%d staleFallbacks=%d",
+			hits.get(), misses.get(), revalidations.get(), staleFallbacks.get());
+	}
+
+	private InputStream read(String path) throws Exception
+	{
+		File file = new File(cacheDir, path);
+		CacheEntry entry = getEntry(file);
+		if (isFresh(entry))
+		{
+			return readHit(path, file);
+		}
+
+		Response response;
+		try
+		{
+			response = httpDataStoreReader.fetch(path, entry != null ? entry.eTag : null, entry != null ? entry.lastModified : null);
+		}
+		catch (IOException ex)
+		{
+			return readStale(path, file, entry, ex);
+		}
+		return readResponse(path, file, entry, response);
+	}
+
+	private CompletableFuture<InputStream> readAsync(String path)
+	{
+		File file = new File(cacheDir, path);
+		return CompletableFuture.supplyAsync(() -> getEntry(file), executor).thenCompose(entry -> {
+			if (isFresh(entry))
+			{
+				return CompletableFuture.supplyAsync(() -> unchecked(() -> readHit(path, file)), executor);
+			}
+			return httpDataStoreReader.fetchAsync(path, entry != null ? entry.eTag : null, entry != null ? entry.lastModified : null)
+				.handleAsync((response, ex) -> unchecked(() -> {
+					if (ex != null)
+					{
+						return readStale(path, file, entry, ex instanceof Exception ? (Exception) ex : new Exception(ex));
+					}
+					return readResponse(path, file, entry, response);
+				}), executor);
+		});
+	}
+
+	private CacheEntry getEntry(File file)
+	{
+		return file.exists() ? readEntry(getMetaFile(file)) : null;
+	}
+
+	private boolean isFresh(CacheEntry entry)
+	{
+		return entry != null && System.currentTimeMillis() - entry.fetchedAt < FRESH_DURATION_MS;
+	}
+
+	private InputStream readHit(String path, File file) throws IOException
+	{
+		hits.incrementAndGet();
+		log.debug("json store cache hit {} ({})", path, getStatsSummary());
+		return new FileInputStream(file);
+	}
+
+	private InputStream readResponse(String path, File file, CacheEntry entry, Response response) throws Exception
+	{
+		File metaFile = getMetaFile(file);
+		long now = System.currentTimeMillis();
+		ResponseBody body = response.body();
+		if (response.code() == 304 && entry != null)
+		{
+			response.close();
+			revalidations.incrementAndGet();
+			entry.fetchedAt = now;
+			writeEntry(metaFile, entry);
+			log.debug("json store cache revalidated {} ({})", path, getStatsSummary());
+			return new FileInputStream(file);
+		}
+		if (!response.isSuccessful() || body == null)
+		{
+			response.close();
+			return readStale(path, file, entry, new Exception(path + " json request unsuccessful with status " + response.code()));
+		}
+
+		File parent = file.getParentFile();
+		if (!parent.exists() && !parent.mkdirs())
+		{
+			response.close();
+			throw new IOException("unable to create json store cache directory " + parent);
+		}
+
+		CacheEntry newEntry = new CacheEntry();
+		newEntry.eTag = response.header("ETag");
+		newEntry.lastModified = response.header("Last-Modified");
+		newEntry.fetchedAt = now;
+
+		misses.incrementAndGet();
+		log.debug("json store cache miss {} ({})", path, getStatsSummary());
+		return new CachingInputStream(body.byteStream(), body.contentLength(), File.createTempFile(file.getName(), ".tmp", parent), file, newEntry);
+	}
+
+	private InputStream readStale(String path, File file, CacheEntry entry, Exception cause) throws Exception
+	{
+		if (entry == null)
+		{
+			throw cause;
+		}
+		staleFallbacks.incrementAndGet();
+		log.warn("Unable to refresh {}, serving cached copy: {}", path, cause.getMessage());
+		return new FileInputStream(file);
+	}
+
+	private static File getMetaFile(File file)
+	{
+		return new File(file.getPath() + META_EXTENSION);
+	}
+
+	private static <T> T unchecked(CacheRead<T> read)
+	{
+		try
+		{
+			return read.read();
+		}
+		catch (Exception ex)
+		{
+			throw new CompletionException(ex);
+		}
+	}
+
+	private CacheEntry readEntry(File metaFile)
+	{
+		if (!metaFile.exists())
+		{
+			return null;
+		}
+		try (Reader reader = Files.newBufferedReader(metaFile.toPath(), StandardCharsets.UTF_8))
+		{
+			return gson.fromJson(reader, CacheEntry.class);
+		}
+		catch (Exception ex)
+		{
+			log.warn("Unreadable json store cache entry {}, ignoring", metaFile, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Write an entry to a temp file and move it into place, so a reader never sees a partly written entry
+	 */
+	private void writeEntry(File metaFile, CacheEntry entry)
+	{
+		File tempFile = null;
+		try
+		{
+			tempFile = File.createTempFile(metaFile.getName(), ".tmp", metaFile.getParentFile());
+			try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8))
+			{
+				gson.toJson(entry, writer);
+			}
+			Files.move(tempFile.toPath(), metaFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to write json store cache entry {}", metaFile, ex);
+		}
+		finally
+		{
+			if (tempFile != null && tempFile.exists() && !tempFile.delete())
+			{
+				log.debug("Unable to delete {}", tempFile);
+			}
+		}
+	}
+
+	/**
+	 * Passes a response body through to the reader while copying it to a temp file, so callers can start
+	 * parsing before the download finishes. The copy replaces the cached file on close if the body was read to the
+	 * end. A reader that stops early, e.g. because its load was cancelled, leaves the rest of the body unread and the
+	 * partial copy is discarded.
+	 */
+	private class CachingInputStream extends FilterInputStream
+	{
+		private final OutputStream copy;
+		private final long contentLength;
+		private final File tempFile;
+		private final File file;
+		private final CacheEntry entry;
+		private long readCount = 0;
+		private boolean ended = false;
+		private boolean closed = false;
+
+		CachingInputStream(InputStream body, long contentLength, File tempFile, File file, CacheEntry entry) throws IOException
+		{
+			super(body);
+			this.copy = new BufferedOutputStream(new FileOutputStream(tempFile));
+			this.contentLength = contentLength;
+			this.tempFile = tempFile;
+			this.file = file;
+			this.entry = entry;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int b = super.read();
+			if (b == -1)
+			{
+				ended = true;
+			}
+			else
+			{
+				copy.write(b);
+				readCount++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException
+		{
+			int count = super.read(buffer, offset, length);
+			if (count == -1)
+			{
+				ended = true;
+			}
+			else if (count > 0)
+			{
+				copy.write(buffer, offset, count);
+				readCount += count;
+			}
+			return count;
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return false;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			byte[] buffer = new byte[(int) Math.min(n, 8192)];
+			int count = read(buffer, 0, buffer.length);
+			return Math.max(count, 0);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (closed)
+			{
+				return;
+			}
+			closed = true;
+			try
+			{
+				boolean complete = ended || readTail();
+				copy.close();
+				if (complete)
+				{
+					replaceCachedFile();
+				}
+				else
+				{
+					log.debug("json store download of {} closed after {} bytes, discarding partial copy", file.getName(), readCount);
+				}
+			}
+			finally
+			{
+				copy.close();
+				Files.deleteIfExists(tempFile.toPath());
+				super.close();
+			}
+		}
+
+		/**
+		 * Readers such as JsonReader stop at the closing token, so up to a few bytes of trailing whitespace may be
+		 * unread. Read at most {@link #MAX_UNREAD_TAIL} more bytes looking for the end of the body, rather than
+		 * downloading the rest of a body the reader abandoned.
+		 *
+		 * @return whether the end of the body was reached
+		 */
+		private boolean readTail()
+		{
+			if (contentLength >= 0 && contentLength - readCount > MAX_UNREAD_TAIL)
+			{
+				return false;
+			}
+			try
+			{
+				byte[] buffer = new byte[MAX_UNREAD_TAIL];
+				long tailCount = 0;
+				while (tailCount <= MAX_UNREAD_TAIL)
+				{
+					int count = read(buffer, 0, buffer.length);
+					if (count == -1)
+					{
+						return true;
+					}
+					tailCount += count;
+				}
+			}
+			catch (IOException ex)
+			{
+				log.debug("json store download of {} failed while closing", file.getName(), ex);
+			}
+			return false;
+		}
+
+		private void replaceCachedFile()
+		{
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException ex)
+			{
+				// e.g. on Windows while another reader has the cached file open; it stays valid for its own entry
+				log.warn("Unable to replace cached {}, keeping the previous copy", file, ex);
+				return;
+			}
+			writeEntry(getMetaFile(file), entry);
+		}
+	}
+
+	private interface CacheRead<T>
+	{
+		T read() throws Exception;
+	}
+
+	private static class CacheEntry
+	{
+		String eTag;
+		String lastModified;
+		long fetchedAt;
+	}
+}
@@ -1,6 +1,7 @@
 package net.reldo.taskstracker.data.jsondatastore.reader;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 public interface DataStoreReader
 {
@@ -8,4 +9,15 @@ public interface DataStoreReader
 	InputStream readTaskTypes(String taskTypeFilename) throws Exception;
 	InputStream readTasks(String jsonFilename) throws Exception;
 	InputStream readFilterConfigs(String filterFilename) throws Exception;
+
+	CompletableFuture<InputStream> readManifestDataAsync();
+	CompletableFuture<InputStream> readTaskTypesAsync(String taskTypeFilename);
+	CompletableFuture<InputStream> readTasksAsync(String jsonFilename);
+	CompletableFuture<InputStream> readFilterConfigsAsync(String filterFilename);
+
+	/**
+	 * A version tag identifying the task file content last read for a task type, without reading it again
+	 * @return the version tag, or null if unknown
+	 */
+	String getTasksVersion(String jsonFilename);
 }
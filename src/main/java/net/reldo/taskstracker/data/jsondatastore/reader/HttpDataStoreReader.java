@@ -1,10 +1,17 @@
 package net.reldo.taskstracker.data.jsondatastore.reader;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import net.reldo.taskstracker.data.jsondatastore.JsonDataStore;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -13,118 +20,160 @@ import okhttp3.Response;
 @Slf4j
 public class HttpDataStoreReader implements DataStoreReader
 {
+	public static final String MANIFEST_PATH = "manifest.json";
+
 	@Inject
 	private OkHttpClient okHttpClient;
 
 	@Override
 	public InputStream readManifestData() throws Exception
 	{
-		String manifestUrl = JsonDataStore.baseUrl + "/manifest.json";
-		log.debug("getManifest json from {} ...", manifestUrl);
-		Request request = new Request.Builder()
-			.url(manifestUrl)
-			.build();
-		Response response = this.okHttpClient.newCall(request).execute();
-		if (!response.isSuccessful())
-		{
-			String unsuccessful = "getManifest json request unsuccessful with status " + response.code();
-			if (response.body() != null)
-			{
-				unsuccessful += " and body \n" + response.body();
-			}
-			log.error(unsuccessful);
-			throw new Exception(unsuccessful);
-		}
-		if (response.body() == null)
-		{
-			log.error("getManifest returned without body");
-			throw new Exception("getManifest returned without body");
-		}
-		log.debug("getManifest json fetched successfully, deserializing result");
-		return response.body().byteStream();
+		return read(MANIFEST_PATH, "getManifest");
 	}
 
 	@Override
 	public InputStream readTaskTypes(String taskTypeFilename) throws Exception
 	{
-		String taskJsonUrl = JsonDataStore.baseUrl + "/" + taskTypeFilename;
-		log.debug("getTaskTypes json from {} ...", taskJsonUrl);
-		Request request = new Request.Builder()
-			.url(taskJsonUrl)
-			.build();
-		Response response = this.okHttpClient.newCall(request).execute();
-		if (!response.isSuccessful())
-		{
-			String unsuccessful = "getTaskTypes json request unsuccessful with status " + response.code();
-			if (response.body() != null)
-			{
-				unsuccessful += " and body \n" + response.body();
-			}
-			log.error(unsuccessful);
-			throw new Exception(unsuccessful);
-		}
-		if (response.body() == null)
-		{
-			log.error("getTaskTypes returned without body");
-			throw new Exception("getTaskTypes returned without body");
-		}
-		log.debug("getTaskTypes json fetched successfully, deserializing result");
-		return response.body().byteStream();
+		return read(taskTypeFilename, "getTaskTypes");
 	}
 
 	@Override
 	public InputStream readTasks(String jsonFilename) throws Exception
 	{
-		String taskJsonUrl = String.format("%s/tasks/%s.min.json", JsonDataStore.baseUrl, jsonFilename);
-		log.debug("getTasks json from {} ...", taskJsonUrl);
-		Request request = new Request.Builder()
-			.url(taskJsonUrl)
-			.build();
-		Response response = this.okHttpClient.newCall(request).execute();
-		if (!response.isSuccessful())
+		return read(getTasksPath(jsonFilename), "getTasks");
+	}
+
+	@Override
+	public InputStream readFilterConfigs(String filterFilename) throws Exception
+	{
+		return read(filterFilename, "getFilters");
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readManifestDataAsync()
+	{
+		return readAsync(MANIFEST_PATH, "getManifest");
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readTaskTypesAsync(String taskTypeFilename)
+	{
+		return readAsync(taskTypeFilename, "getTaskTypes");
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readTasksAsync(String jsonFilename)
+	{
+		return readAsync(getTasksPath(jsonFilename), "getTasks");
+	}
+
+	@Override
+	public CompletableFuture<InputStream> readFilterConfigsAsync(String filterFilename)
+	{
+		return readAsync(filterFilename, "getFilters");
+	}
+
+	@Override
+	public String getTasksVersion(String jsonFilename)
+	{
+		return null;
+	}
+
+	public static String getTasksPath(String jsonFilename)
+	{
+		return String.format("tasks/%s.min.json", jsonFilename);
+	}
+
+	/**
+	 * Executes a GET for a path relative to the json data store, optionally as a conditional request.
+	 * The caller owns the response and must close it. A 304 response is returned as-is.
+	 *
+	 * @param path         path relative to {@link JsonDataStore#baseUrl}
+	 * @param eTag         ETag of a previously fetched copy, sent as If-None-Match
+	 * @param lastModified Last-Modified of a previously fetched copy, sent as If-Modified-Since
+	 */
+	public Response fetch(String path, @Nullable String eTag, @Nullable String lastModified) throws Exception
+	{
+		return newCall(path, eTag, lastModified).execute();
+	}
+
+	/**
+	 * Asynchronous {@link #fetch}, enqueued on OkHttp's dispatcher. The future completes on an OkHttp thread.
+	 */
+	public CompletableFuture<Response> fetchAsync(String path, @Nullable String eTag, @Nullable String lastModified)
+	{
+		CompletableFuture<Response> future = new CompletableFuture<>();
+		newCall(path, eTag, lastModified).enqueue(new Callback()
 		{
-			String unsuccessful = "getTasks json request unsuccessful with status " + response.code();
-			if (response.body() != null)
+			@Override
+			public void onFailure(@Nonnull Call call, @Nonnull IOException ex)
 			{
-				unsuccessful += " and body \n" + response.body();
+				future.completeExceptionally(ex);
 			}
-			log.error(unsuccessful);
-			throw new Exception(unsuccessful);
+
+			@Override
+			public void onResponse(@Nonnull Call call, @Nonnull Response response)
+			{
+				future.complete(response);
+			}
+		});
+		return future;
+	}
+
+	private Call newCall(String path, @Nullable String eTag, @Nullable String lastModified)
+	{
+		String url = JsonDataStore.baseUrl + "/" + path;
+		log.debug("fetch json from {} ...", url);
+		Request.Builder requestBuilder = new Request.Builder().url(url);
+		if (eTag != null)
+		{
+			requestBuilder.header("If-None-Match", eTag);
 		}
-		if (response.body() == null)
+		if (lastModified != null)
 		{
-			log.error("getTasks returned without body");
-			throw new Exception("getTasks returned without body");
+			requestBuilder.header("If-Modified-Since", lastModified);
 		}
-		log.debug("getTasks json fetched successfully, deserializing result");
-		return response.body().byteStream();
+		return this.okHttpClient.newCall(requestBuilder.build());
 	}
 
-	@Override
-	public InputStream readFilterConfigs(String filterFilename)  throws Exception
-	{
-		String filterJsonUrl = JsonDataStore.baseUrl + "/" + filterFilename;
-		log.debug("getTaskTypes json from {} ...", filterJsonUrl);
-		Request request = new Request.Builder()
-				.url(filterJsonUrl)
-				.build();
-		Response response = this.okHttpClient.newCall(request).execute();
+	private InputStream read(String path, String label) throws Exception
+	{
+		return getBodyStream(fetch(path, null, null), label);
+	}
+
+	private CompletableFuture<InputStream> readAsync(String path, String label)
+	{
+		return fetchAsync(path, null, null).thenApply(response -> {
+			try
+			{
+				return getBodyStream(response, label);
+			}
+			catch (Exception ex)
+			{
+				throw new CompletionException(ex);
+			}
+		});
+	}
+
+	private InputStream getBodyStream(Response response, String label) throws Exception
+	{
 		if (!response.isSuccessful())
 		{
-			String unsuccessful = "getFilters json request unsuccessful with status " + response.code();
+			String unsuccessful = label + " json request unsuccessful with status " + response.code();
 			if (response.body() != null)
 			{
 				unsuccessful += " and body \n" + response.body();
 			}
+			response.close();
 			log.error(unsuccessful);
 			throw new Exception(unsuccessful);
 		}
 		if (response.body() == null)
 		{
-			log.error("getFilters returned without body");
-			throw new Exception("getFilters returned without body");
+			log.error(label + " returned without body");
+			throw new Exception(label + " returned without body");
 		}
-		log.debug("getFilters json fetched successfully, deserializing result");
+		log.debug(label + " json fetched successfully, deserializing result");
 		return response.body().byteStream();
 	}
 }
@@ -8,6 +8,10 @@ public class ConfigTaskSave
 	@Expose public final long tracked;
 	@Expose public final Integer structId;
 	@Expose public final long ignored;
+	/**
+	 * Task id for saves decoded by TaskSaveCodec, which identifies tasks by id rather than struct id
+	 */
+	public final int taskId;
 
 	public ConfigTaskSave(TaskFromStruct task)
 	{
@@ -15,5 +19,15 @@ public class ConfigTaskSave
 		tracked = task.getTrackedOn();
 		ignored = task.getIgnoredOn();
 		structId = task.getStructId();
+		taskId = task.getId();
+	}
+
+	public ConfigTaskSave(int taskId, long completed, long tracked, long ignored)
+	{
+		this.taskId = taskId;
+		this.completed = completed;
+		this.tracked = tracked;
+		this.ignored = ignored;
+		this.structId = null;
 	}
 }
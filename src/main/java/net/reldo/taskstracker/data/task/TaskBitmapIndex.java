@@ -0,0 +1,78 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
+
+/**
+ * Bitsets of the tasks of one task type load having each value of each filterable int param, indexed by task row.
+ * Built once a task type is loaded and read only after that.
+ */
+public class TaskBitmapIndex
+{
+	@Getter
+	private final int size;
+	private final List<Map<Integer, BitSet>> bitsByOrdinal;
+
+	private TaskBitmapIndex(int size, List<Map<Integer, BitSet>> bitsByOrdinal)
+	{
+		this.size = size;
+		this.bitsByOrdinal = bitsByOrdinal;
+	}
+
+	/**
+	 * Index the params used by a task type's filters
+	 */
+	public static TaskBitmapIndex build(TaskParamStore paramStore, List<FilterConfig> filterConfigs)
+	{
+		List<Map<Integer, BitSet>> bitsByOrdinal = new ArrayList<>();
+		for (int i = 0; i < paramStore.getIntParamNames().length; i++)
+		{
+			bitsByOrdinal.add(null);
+		}
+
+		int size = paramStore.size();
+		for (FilterConfig filterConfig : filterConfigs)
+		{
+			int ordinal = paramStore.getIntOrdinal(filterConfig.getValueName());
+			if (ordinal == -1 || bitsByOrdinal.get(ordinal) != null)
+			{
+				continue;
+			}
+			Map<Integer, BitSet> bitsByValue = new HashMap<>();
+			for (int row = 0; row < size; row++)
+			{
+				bitsByValue.computeIfAbsent(paramStore.getInt(row, ordinal), value -> new BitSet(size)).set(row);
+			}
+			bitsByOrdinal.set(ordinal, bitsByValue);
+		}
+		return new TaskBitmapIndex(size, bitsByOrdinal);
+	}
+
+	public boolean isIndexed(int ordinal)
+	{
+		return ordinal >= 0 && ordinal < bitsByOrdinal.size() && bitsByOrdinal.get(ordinal) != null;
+	}
+
+	/**
+	 * @return the tasks with a param value, or null if there are none. Must not be modified.
+	 */
+	public BitSet get(int ordinal, int value)
+	{
+		return bitsByOrdinal.get(ordinal).get(value);
+	}
+
+	/**
+	 * @return a new bitset of every task
+	 */
+	public BitSet all()
+	{
+		BitSet all = new BitSet(size);
+		all.set(0, size);
+		return all;
+	}
+}
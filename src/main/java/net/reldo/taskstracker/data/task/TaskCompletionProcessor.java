@@ -0,0 +1,106 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.TasksTrackerConfig;
+import net.runelite.api.Client;
+
+/**
+ * Applies task completion from the task varps of the current task type. Each varp is read once per pass and diffed
+ * against the value seen on the previous pass, so only tasks whose bit flipped are touched. Tasks are dispatched
+ * through the varp task index of {@link TaskService}.
+ */
+@Singleton
+@Slf4j
+public class TaskCompletionProcessor
+{
+	@Inject private Client client;
+	@Inject private TaskService taskService;
+	@Inject private TasksTrackerConfig config;
+
+	private TaskType taskType;
+	private TaskFromStruct[][] varpTaskIndex;
+	/**
+	 * Last seen varp values, indexed by varp id like the varp task index
+	 */
+	private int[] lastVarpValues = new int[0];
+
+	/**
+	 * Read task varps and update the completion of their tasks. Must be called on the client thread.
+	 *
+	 * @param varpIds varps to process, or null for every task varp of the current task type
+	 * @param force   re-evaluate every bit of the processed varps, not just the bits that changed since the last pass
+	 * @return the tasks whose completed or tracked state changed
+	 */
+	public List<TaskFromStruct> process(@Nullable Collection<Integer> varpIds, boolean force)
+	{
+		assert client.isClientThread();
+
+		List<TaskFromStruct> changedTasks = new ArrayList<>();
+		// The task type and varp index are read from one snapshot, so they belong to the same load
+		TaskSet taskSet = taskService.getTaskSet();
+		if (taskSet.getTaskType() == null)
+		{
+			return changedTasks;
+		}
+		if (force || taskSet.getVarpTaskIndex() != varpTaskIndex)
+		{
+			// Nothing is known about the varps of a newly loaded task type, so every bit has to be evaluated
+			taskType = taskSet.getTaskType();
+			varpTaskIndex = taskSet.getVarpTaskIndex();
+			lastVarpValues = new int[varpTaskIndex.length];
+			force = true;
+		}
+
+		for (int varpId : varpIds != null ? varpIds : taskType.getTaskVarps())
+		{
+			processVarp(varpId, force, changedTasks);
+		}
+
+		log.debug("processed varps {} of {}, {} tasks changed", varpIds != null ? varpIds : "all", taskType.getTaskJsonName(), changedTasks.size());
+		return changedTasks;
+	}
+
+	private void processVarp(int varpId, boolean force, List<TaskFromStruct> changedTasks)
+	{
+		// Use the index captured with lastVarpValues, rather than one published since
+		if (varpId < 0 || varpId >= varpTaskIndex.length || varpTaskIndex[varpId] == null)
+		{
+			return;
+		}
+		TaskFromStruct[] varpTasks = varpTaskIndex[varpId];
+
+		int value = client.getVarpValue(varpId);
+		int flippedBits = force ? -1 : value ^ lastVarpValues[varpId];
+		lastVarpValues[varpId] = value;
+
+		while (flippedBits != 0)
+		{
+			int bitIndex = Integer.numberOfTrailingZeros(flippedBits);
+			flippedBits &= flippedBits - 1;
+
+			TaskFromStruct task = varpTasks[bitIndex];
+			if (task != null && applyCompletion(task, (value & (1 << bitIndex)) != 0))
+			{
+				changedTasks.add(task);
+			}
+		}
+	}
+
+	private boolean applyCompletion(TaskFromStruct task, boolean isCompleted)
+	{
+		long completedOn = task.getCompletedOn();
+		long trackedOn = task.getTrackedOn();
+		task.setCompleted(isCompleted);
+		if (isCompleted && config.untrackUponCompletion())
+		{
+			task.setTracked(false);
+		}
+		return completedOn != task.getCompletedOn() || trackedOn != task.getTrackedOn();
+	}
+}
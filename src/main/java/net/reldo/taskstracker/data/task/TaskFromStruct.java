@@ -1,10 +1,7 @@
 package net.reldo.taskstracker.data.task;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinition;
 import net.reldo.taskstracker.data.reldo.ReldoTaskSave;
@@ -24,33 +21,83 @@ public class TaskFromStruct
 	private final TaskDefinition taskDefinition;
 	@Getter
 	private boolean structLoaded;
-	@Getter @Setter
-	private long completedOn;
-	@Getter @Setter
-	private long trackedOn;
-	@Getter @Setter
-	private long ignoredOn;
+	// Written on the client thread and EDT, read from any thread
+	@Getter
+	private volatile long completedOn;
+	@Getter
+	private volatile long trackedOn;
+	@Getter
+	private volatile long ignoredOn;
+	/**
+	 * Whether completed, tracked or ignored state changed since the task was last saved
+	 */
+	@Getter
+	private volatile boolean dirty;
 
-	private StructComposition _struct;
-	private final Map<String, String> _stringParams = new HashMap<>();
-	private final Map<String, Integer> _intParams = new HashMap<>();
+	@Getter
+	private final TaskParamStore paramStore;
+	@Getter
+	private final int row;
 
-	public TaskFromStruct(TaskType taskType, TaskDefinition taskDefinition)
+	public TaskFromStruct(TaskType taskType, TaskParamStore paramStore, TaskDefinition taskDefinition)
 	{
 		this.taskType = taskType;
 		this.taskDefinition = taskDefinition;
 		this.structId = taskDefinition.getStructId();
 		this.sortId = taskDefinition.getSortId();
+		this.paramStore = paramStore;
+		this.row = paramStore.addRow();
+	}
+
+	/**
+	 * Create a task with struct data already resolved, e.g. from a snapshot
+	 */
+	public TaskFromStruct(TaskType taskType, TaskParamStore paramStore, TaskDefinition taskDefinition, int[] intValues, String[] stringValues)
+	{
+		this(taskType, paramStore, taskDefinition);
+		paramStore.setRow(row, intValues, stringValues);
+		this.structLoaded = true;
 	}
 
 	public String getStringParam(String paramName)
 	{
-		return this._stringParams.get(paramName);
+		int ordinal = paramStore.getStringOrdinal(paramName);
+		if (ordinal == -1 || !structLoaded)
+		{
+			return null;
+		}
+		return paramStore.getString(row, ordinal);
 	}
 
 	public Integer getIntParam(String paramName)
 	{
-		return this._intParams.get(paramName);
+		int ordinal = paramStore.getIntOrdinal(paramName);
+		if (ordinal == -1 || !structLoaded)
+		{
+			return null;
+		}
+		return paramStore.getInt(row, ordinal);
+	}
+
+	/**
+	 * Allocation-free param access for hot paths, with the ordinal resolved from {@link TaskParamStore#getIntOrdinal}
+	 */
+	public int getIntParam(int ordinal)
+	{
+		return paramStore.getInt(row, ordinal);
+	}
+
+	public String getStringParam(int ordinal)
+	{
+		return paramStore.getString(row, ordinal);
+	}
+
+	/**
+	 * @return the task id, or -1 if the task type has no id param
+	 */
+	public int getId()
+	{
+		return paramStore.getIdOrdinal() >= 0 ? paramStore.getInt(row, paramStore.getIdOrdinal()) : -1;
 	}
 
 	// TODO: Remove client from params
@@ -63,18 +110,20 @@ public class TaskFromStruct
 		}
 		try
 		{
-			// log.debug("LOADING STRUCT DATA " + structId);
-			_struct = client.getStructComposition(structId);
-			taskType.getIntParamMap().forEach((paramName, paramId) -> {
-				int value = _struct.getIntValue(paramId);
-				// log.debug("{} {}", paramName, value);
-				_intParams.put(paramName, value);
-			});
-			taskType.getStringParamMap().forEach((paramName, paramId) -> {
-				String value = _struct.getStringValue(paramId);
-				// log.debug("{} {}", paramName, value);
-				_stringParams.put(paramName, value);
-			});
+			StructComposition struct = client.getStructComposition(structId);
+			int[] intParamIds = paramStore.getIntParamIds();
+			int[] intValues = new int[intParamIds.length];
+			for (int i = 0; i < intParamIds.length; i++)
+			{
+				intValues[i] = struct.getIntValue(intParamIds[i]);
+			}
+			int[] stringParamIds = paramStore.getStringParamIds();
+			String[] stringValues = new String[stringParamIds.length];
+			for (int i = 0; i < stringParamIds.length; i++)
+			{
+				stringValues[i] = struct.getStringValue(stringParamIds[i]);
+			}
+			paramStore.setRow(row, intValues, stringValues);
 		}
 		catch (Exception ex)
 		{
@@ -86,6 +135,41 @@ public class TaskFromStruct
 		return true;
 	}
 
+	public void setCompletedOn(long completedOn)
+	{
+		if (this.completedOn != completedOn)
+		{
+			this.completedOn = completedOn;
+			paramStore.setState(row, TaskParamStore.COMPLETED, completedOn > 0);
+			dirty = true;
+		}
+	}
+
+	public void setTrackedOn(long trackedOn)
+	{
+		if (this.trackedOn != trackedOn)
+		{
+			this.trackedOn = trackedOn;
+			paramStore.setState(row, TaskParamStore.TRACKED, trackedOn > 0);
+			dirty = true;
+		}
+	}
+
+	public void setIgnoredOn(long ignoredOn)
+	{
+		if (this.ignoredOn != ignoredOn)
+		{
+			this.ignoredOn = ignoredOn;
+			paramStore.setState(row, TaskParamStore.IGNORED, ignoredOn > 0);
+			dirty = true;
+		}
+	}
+
+	public void clearDirty()
+	{
+		dirty = false;
+	}
+
 	public boolean isCompleted()
 	{
 		return completedOn > 0;
@@ -112,7 +196,7 @@ public class TaskFromStruct
 		{
 			return;
 		}
-		completedOn = completed ? now : 0;
+		setCompletedOn(completed ? now : 0);
 	}
 
 	public boolean isTracked()
@@ -127,7 +211,7 @@ public class TaskFromStruct
 		{
 			return;
 		}
-		trackedOn = state ? now : 0;
+		setTrackedOn(state ? now : 0);
 	}
 
 	public boolean isIgnored()
@@ -142,7 +226,7 @@ public class TaskFromStruct
 		{
 			return;
 		}
-		ignoredOn = state ? now : 0;
+		setIgnoredOn(state ? now : 0);
 	}
 
 	public void loadConfigSave(ConfigTaskSave loadedData)
@@ -184,17 +268,20 @@ public class TaskFromStruct
 
 	public String getName()
 	{
-		return getStringParam("name");
+		return paramStore.getNameOrdinal() != -1 ? getStringParam(paramStore.getNameOrdinal()) : null;
 	}
 
+	/**
+	 * @return the tier, or 0 if the task type has no tier param
+	 */
 	public int getTier()
 	{
-		return getIntParam("tier");
+		return paramStore.getTierOrdinal() >= 0 ? getIntParam(paramStore.getTierOrdinal()) : 0;
 	}
 
 	public String getDescription()
 	{
-		return getStringParam("description");
+		return paramStore.getDescriptionOrdinal() != -1 ? getStringParam(paramStore.getDescriptionOrdinal()) : null;
 	}
 
 	public ConfigTaskSave getSaveData()
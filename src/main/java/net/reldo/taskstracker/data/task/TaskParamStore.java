@@ -0,0 +1,214 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+
+/**
+ * Column store of struct params for the tasks of one task type load. Param names are resolved to ordinals once,
+ * int params live in one int[] column per param and string params in one String[] column per param.
+ * Each {@link TaskFromStruct} is a row view over the store. The store also keeps live bitsets of completed, tracked
+ * and ignored rows, updated by the task as its state changes.
+ * <p>
+ * Rows are allocated and written while a task type loads, from the streaming and client threads. Reads are
+ * unsynchronized and only safe once the load has completed.
+ */
+public class TaskParamStore
+{
+	private static final int INITIAL_CAPACITY = 256;
+
+	public static final int COMPLETED = 0;
+	public static final int TRACKED = 1;
+	public static final int IGNORED = 2;
+
+	@Getter
+	private final TaskType taskType;
+	@Getter
+	private final String[] intParamNames;
+	@Getter
+	private final int[] intParamIds;
+	@Getter
+	private final String[] stringParamNames;
+	@Getter
+	private final int[] stringParamIds;
+	private final Map<String, Integer> intOrdinals = new HashMap<>();
+	private final Map<String, Integer> stringOrdinals = new HashMap<>();
+
+	@Getter
+	private final int idOrdinal;
+	@Getter
+	private final int tierOrdinal;
+	@Getter
+	private final int nameOrdinal;
+	@Getter
+	private final int descriptionOrdinal;
+
+	private int[][] intColumns;
+	private String[][] stringColumns;
+	private int rowCount = 0;
+	private final BitSet[] stateBits = {new BitSet(), new BitSet(), new BitSet()};
+	/**
+	 * Incremented whenever a state bit changes, so derived results can be cached
+	 */
+	@Getter
+	private volatile int stateVersion = 0;
+	private StateListener stateListener;
+
+	public TaskParamStore(TaskType taskType)
+	{
+		this.taskType = taskType;
+
+		int intParamCount = taskType.getIntParamMap().size();
+		intParamNames = new String[intParamCount];
+		intParamIds = new int[intParamCount];
+		int ordinal = 0;
+		for (Map.Entry<String, Integer> param : taskType.getIntParamMap().entrySet())
+		{
+			intParamNames[ordinal] = param.getKey().intern();
+			intParamIds[ordinal] = param.getValue();
+			intOrdinals.put(intParamNames[ordinal], ordinal);
+			ordinal++;
+		}
+
+		int stringParamCount = taskType.getStringParamMap().size();
+		stringParamNames = new String[stringParamCount];
+		stringParamIds = new int[stringParamCount];
+		ordinal = 0;
+		for (Map.Entry<String, Integer> param : taskType.getStringParamMap().entrySet())
+		{
+			stringParamNames[ordinal] = param.getKey().intern();
+			stringParamIds[ordinal] = param.getValue();
+			stringOrdinals.put(stringParamNames[ordinal], ordinal);
+			ordinal++;
+		}
+
+		intColumns = new int[intParamCount][INITIAL_CAPACITY];
+		stringColumns = new String[stringParamCount][INITIAL_CAPACITY];
+
+		idOrdinal = getIntOrdinal("id");
+		tierOrdinal = getIntOrdinal("tier");
+		nameOrdinal = getStringOrdinal("name");
+		descriptionOrdinal = getStringOrdinal("description");
+	}
+
+	/**
+	 * @return the ordinal of an int param, or -1 if the task type does not have it
+	 */
+	public int getIntOrdinal(String paramName)
+	{
+		Integer ordinal = intOrdinals.get(paramName);
+		return ordinal != null ? ordinal : -1;
+	}
+
+	/**
+	 * @return the ordinal of a string param, or -1 if the task type does not have it
+	 */
+	public int getStringOrdinal(String paramName)
+	{
+		Integer ordinal = stringOrdinals.get(paramName);
+		return ordinal != null ? ordinal : -1;
+	}
+
+	public int size()
+	{
+		return rowCount;
+	}
+
+	public int getInt(int row, int ordinal)
+	{
+		return intColumns[ordinal][row];
+	}
+
+	public String getString(int row, int ordinal)
+	{
+		return stringColumns[ordinal][row];
+	}
+
+	synchronized int addRow()
+	{
+		if (rowCount == capacity())
+		{
+			int newCapacity = capacity() * 2;
+			for (int i = 0; i < intColumns.length; i++)
+			{
+				intColumns[i] = Arrays.copyOf(intColumns[i], newCapacity);
+			}
+			for (int i = 0; i < stringColumns.length; i++)
+			{
+				stringColumns[i] = Arrays.copyOf(stringColumns[i], newCapacity);
+			}
+		}
+		return rowCount++;
+	}
+
+	/**
+	 * Write every param of a row, values ordered by ordinal
+	 */
+	synchronized void setRow(int row, int[] intValues, String[] stringValues)
+	{
+		for (int i = 0; i < intValues.length; i++)
+		{
+			intColumns[i][row] = intValues[i];
+		}
+		for (int i = 0; i < stringValues.length; i++)
+		{
+			stringColumns[i][row] = stringValues[i];
+		}
+	}
+
+	/**
+	 * Called when the date of a completed, tracked or ignored state of a row changes
+	 */
+	public interface StateListener
+	{
+		void onStateChanged(int row, int state);
+	}
+
+	public synchronized void setStateListener(StateListener stateListener)
+	{
+		this.stateListener = stateListener;
+	}
+
+	/**
+	 * Record the state of a row after its date changed
+	 */
+	synchronized void setState(int row, int state, boolean value)
+	{
+		if (stateListener != null)
+		{
+			stateListener.onStateChanged(row, state);
+		}
+		if (stateBits[state].get(row) != value)
+		{
+			stateBits[state].set(row, value);
+			stateVersion++;
+		}
+	}
+
+	/**
+	 * Intersect tasks with the rows that have, or with value false lack, a state
+	 */
+	public synchronized void andState(BitSet tasks, int state, boolean value)
+	{
+		if (value)
+		{
+			tasks.and(stateBits[state]);
+		}
+		else
+		{
+			tasks.andNot(stateBits[state]);
+		}
+	}
+
+	private int capacity()
+	{
+		// Param-less task types still need row ids
+		if (intColumns.length > 0)
+		{
+			return intColumns[0].length;
+		}
+		return stringColumns.length > 0 ? stringColumns[0].length : Integer.MAX_VALUE;
+	}
+}
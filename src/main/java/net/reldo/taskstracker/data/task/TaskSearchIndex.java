@@ -0,0 +1,297 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Text search over the name, description and wiki notes of the tasks of one task type load, indexed by task row.
+ * The fields are lowercased once, and every trigram of a field maps to the sorted rows containing it, stored as
+ * primitive arrays. A query is split into one piece per tolerated edit plus one; as an occurrence within the edits
+ * holds at least one piece unchanged, only rows containing every trigram of some piece are confirmed with a
+ * {@link TaskSearchMatcher}. Queries whose pieces are shorter than a trigram check every row.
+ */
+public class TaskSearchIndex
+{
+	private static final int CANCEL_CHECK_MASK = 0xFF;
+	// Ranking of a hit by field (name, description, wiki notes), word start and edits
+	private static final int[] FIELD_SCORES = {3000, 2000, 1000};
+	private static final int WORD_START_SCORE = 500;
+	private static final int EDIT_PENALTY = 200;
+
+	private final int size;
+	private final String[][] fields;
+	// Distinct trigrams in ascending order; the rows containing trigrams[i] are postingRows[postingStarts[i]] up to
+	// postingRows[postingStarts[i + 1]], ascending
+	private final long[] trigrams;
+	private final int[] postingStarts;
+	private final int[] postingRows;
+
+	private TaskSearchIndex(String[][] fields, long[] trigrams, int[] postingStarts, int[] postingRows)
+	{
+		this.size = fields.length;
+		this.fields = fields;
+		this.trigrams = trigrams;
+		this.postingStarts = postingStarts;
+		this.postingRows = postingRows;
+	}
+
+	public static TaskSearchIndex build(TaskParamStore paramStore, List<TaskFromStruct> tasks)
+	{
+		String[][] fields = new String[paramStore.size()][];
+		for (TaskFromStruct task : tasks)
+		{
+			String wikiNotes = task.getTaskDefinition() != null ? task.getTaskDefinition().getWikiNotes() : null;
+			fields[task.getRow()] = new String[]{lowercase(task.getName()), lowercase(task.getDescription()), lowercase(wikiNotes)};
+		}
+		return build(fields);
+	}
+
+	/**
+	 * @param fields lowercased fields by row, null for rows without a task
+	 */
+	static TaskSearchIndex build(String[][] fields)
+	{
+		int occurrenceCount = 0;
+		for (int row = 0; row < fields.length; row++)
+		{
+			if (fields[row] == null)
+			{
+				fields[row] = new String[0];
+				continue;
+			}
+			for (String field : fields[row])
+			{
+				occurrenceCount += Math.max(0, field.length() - 2);
+			}
+		}
+
+		// Every trigram occurrence in row order, then the distinct trigrams
+		long[] occurrences = new long[occurrenceCount];
+		int[] occurrenceRows = new int[occurrenceCount];
+		int count = 0;
+		for (int row = 0; row < fields.length; row++)
+		{
+			for (String field : fields[row])
+			{
+				for (int i = 0; i + 3 <= field.length(); i++)
+				{
+					occurrences[count] = trigram(field, i);
+					occurrenceRows[count++] = row;
+				}
+			}
+		}
+		long[] trigrams = occurrences.clone();
+		Arrays.sort(trigrams);
+		int distinctCount = 0;
+		for (int i = 0; i < trigrams.length; i++)
+		{
+			if (i == 0 || trigrams[i] != trigrams[i - 1])
+			{
+				trigrams[distinctCount++] = trigrams[i];
+			}
+		}
+		trigrams = Arrays.copyOf(trigrams, distinctCount);
+
+		// Count the rows of each trigram, then fill them in; rows are visited in order, so each list is sorted and a
+		// repeat within a row is always the last row added
+		int[] trigramIndexes = new int[occurrenceCount];
+		int[] lastRows = new int[distinctCount];
+		Arrays.fill(lastRows, -1);
+		int[] postingStarts = new int[distinctCount + 1];
+		for (int i = 0; i < occurrenceCount; i++)
+		{
+			int trigramIndex = Arrays.binarySearch(trigrams, occurrences[i]);
+			trigramIndexes[i] = trigramIndex;
+			if (lastRows[trigramIndex] != occurrenceRows[i])
+			{
+				lastRows[trigramIndex] = occurrenceRows[i];
+				postingStarts[trigramIndex + 1]++;
+			}
+		}
+		for (int i = 0; i < distinctCount; i++)
+		{
+			postingStarts[i + 1] += postingStarts[i];
+		}
+		int[] postingRows = new int[postingStarts[distinctCount]];
+		int[] fillCounts = new int[distinctCount];
+		Arrays.fill(lastRows, -1);
+		for (int i = 0; i < occurrenceCount; i++)
+		{
+			int trigramIndex = trigramIndexes[i];
+			if (lastRows[trigramIndex] != occurrenceRows[i])
+			{
+				lastRows[trigramIndex] = occurrenceRows[i];
+				postingRows[postingStarts[trigramIndex] + fillCounts[trigramIndex]++] = occurrenceRows[i];
+			}
+		}
+
+		return new TaskSearchIndex(fields, trigrams, postingStarts, postingRows);
+	}
+
+	/**
+	 * @param query search text, lowercased
+	 * @return the rows with a field containing the query
+	 */
+	public BitSet search(String query)
+	{
+		return search(query, false, null, () -> false).getMatches();
+	}
+
+	/**
+	 * Find and rank the rows with a field containing the query, or with fuzzy matching an approximate occurrence of
+	 * it. Name hits rank above description hits above wiki note hits, occurrences starting a word above ones inside a
+	 * word, and exact occurrences above ones with edits.
+	 *
+	 * @param query     search text, lowercased
+	 * @param fuzzy     whether to tolerate typos, see {@link TaskSearchMatcher#getMaxEdits}
+	 * @param previous  result of an earlier search whose matches may be narrowed, or null
+	 * @param cancelled polled while searching, to abandon a superseded query
+	 * @return the result, or null if cancelled
+	 */
+	public TaskSearchResult search(String query, boolean fuzzy, @Nullable TaskSearchResult previous, BooleanSupplier cancelled)
+	{
+		TaskSearchMatcher matcher = new TaskSearchMatcher(query, fuzzy ? TaskSearchMatcher.getMaxEdits(query.length()) : 0);
+
+		BitSet candidates;
+		if (previous != null && previous.getMaxEdits() == matcher.getMaxEdits() && query.contains(previous.getQuery()))
+		{
+			// An occurrence of the query holds one of the previous query within the same edits
+			candidates = previous.getMatches();
+		}
+		else
+		{
+			candidates = getCandidates(query, matcher.getMaxEdits());
+		}
+
+		BitSet matches = new BitSet(size);
+		int[] scores = new int[size];
+		int checked = 0;
+		for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1))
+		{
+			if ((++checked & CANCEL_CHECK_MASK) == 0 && cancelled.getAsBoolean())
+			{
+				return null;
+			}
+			int score = score(row, matcher);
+			if (score > 0)
+			{
+				matches.set(row);
+				scores[row] = score;
+			}
+		}
+		return new TaskSearchResult(query, matcher.getMaxEdits(), matches, scores);
+	}
+
+	/**
+	 * Rows that can hold an occurrence of the query within the edits: those containing every trigram of at least one
+	 * of maxEdits + 1 disjoint pieces of the query, since each edit changes at most one piece. Every row if the pieces
+	 * are shorter than a trigram.
+	 */
+	BitSet getCandidates(String query, int maxEdits)
+	{
+		BitSet candidates = new BitSet(size);
+		int pieceCount = maxEdits + 1;
+		int pieceLength = query.length() / pieceCount;
+		if (pieceLength < 3)
+		{
+			candidates.set(0, size);
+			return candidates;
+		}
+
+		for (int piece = 0; piece < pieceCount; piece++)
+		{
+			int pieceStart = piece * pieceLength;
+			// The last piece takes the remainder
+			int pieceEnd = piece == pieceCount - 1 ? query.length() : pieceStart + pieceLength;
+			addRowsContainingAll(query, pieceStart, pieceEnd, candidates);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Add the rows containing every trigram of query[start, end) to the candidates, walking the shortest posting list
+	 * and probing the others
+	 */
+	private void addRowsContainingAll(String query, int start, int end, BitSet candidates)
+	{
+		int trigramCount = end - start - 2;
+		int[] trigramIndexes = new int[trigramCount];
+		int shortest = 0;
+		for (int i = 0; i < trigramCount; i++)
+		{
+			trigramIndexes[i] = Arrays.binarySearch(trigrams, trigram(query, start + i));
+			if (trigramIndexes[i] < 0)
+			{
+				// No row contains the trigram
+				return;
+			}
+			if (getPostingLength(trigramIndexes[i]) < getPostingLength(trigramIndexes[shortest]))
+			{
+				shortest = i;
+			}
+		}
+
+		int shortestIndex = trigramIndexes[shortest];
+		for (int p = postingStarts[shortestIndex]; p < postingStarts[shortestIndex + 1]; p++)
+		{
+			int row = postingRows[p];
+			if (candidates.get(row))
+			{
+				continue;
+			}
+			boolean isInAll = true;
+			for (int i = 0; i < trigramCount && isInAll; i++)
+			{
+				int trigramIndex = trigramIndexes[i];
+				isInAll = i == shortest
+					|| Arrays.binarySearch(postingRows, postingStarts[trigramIndex], postingStarts[trigramIndex + 1], row) >= 0;
+			}
+			if (isInAll)
+			{
+				candidates.set(row);
+			}
+		}
+	}
+
+	private int getPostingLength(int trigramIndex)
+	{
+		return postingStarts[trigramIndex + 1] - postingStarts[trigramIndex];
+	}
+
+	private int score(int row, TaskSearchMatcher matcher)
+	{
+		int best = 0;
+		String[] rowFields = fields[row];
+		for (int field = 0; field < rowFields.length; field++)
+		{
+			// Lower fields can not beat a hit in a higher field
+			if (best >= FIELD_SCORES[field] + WORD_START_SCORE)
+			{
+				break;
+			}
+			if (matcher.match(rowFields[field]))
+			{
+				int score = FIELD_SCORES[field] - matcher.getEdits() * EDIT_PENALTY;
+				if (TaskSearchMatcher.isWordStart(rowFields[field], matcher.getStart()))
+				{
+					score += WORD_START_SCORE;
+				}
+				best = Math.max(best, score);
+			}
+		}
+		return best;
+	}
+
+	private static long trigram(String text, int index)
+	{
+		return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+	}
+
+	private static String lowercase(String text)
+	{
+		return text != null ? text.toLowerCase() : "";
+	}
+}
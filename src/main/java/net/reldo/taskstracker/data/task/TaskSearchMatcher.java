@@ -0,0 +1,151 @@
+package net.reldo.taskstracker.data.task;
+
+import lombok.Getter;
+
+/**
+ * Finds the best approximate occurrence of a query within a text, allowing up to a bounded number of edits. Uses the
+ * edit distance dynamic program over the query with a free start position in the text, keeping only the previous
+ * column. The columns are allocated once per query, so matching many texts does not allocate.
+ * <p>
+ * Not thread safe; use one matcher per search.
+ */
+public class TaskSearchMatcher
+{
+	private final String query;
+	@Getter
+	private final int maxEdits;
+
+	private int[] costs;
+	private int[] starts;
+	private int[] previousCosts;
+	private int[] previousStarts;
+
+	/**
+	 * Edits of the best occurrence found by the last successful {@link #match}
+	 */
+	@Getter
+	private int edits;
+	/**
+	 * Text index the best occurrence found by the last successful {@link #match} starts at
+	 */
+	@Getter
+	private int start;
+
+	public TaskSearchMatcher(String query, int maxEdits)
+	{
+		this.query = query;
+		this.maxEdits = maxEdits;
+		costs = new int[query.length() + 1];
+		starts = new int[query.length() + 1];
+		previousCosts = new int[query.length() + 1];
+		previousStarts = new int[query.length() + 1];
+	}
+
+	/**
+	 * @return the edits tolerated for a query of a length, more for longer queries so short ones stay precise
+	 */
+	public static int getMaxEdits(int queryLength)
+	{
+		if (queryLength <= 3)
+		{
+			return 0;
+		}
+		return queryLength <= 6 ? 1 : 2;
+	}
+
+	/**
+	 * @return whether the text contains the query within the edit bound. Ties prefer fewer edits, then the earliest
+	 * occurrence starting a word.
+	 */
+	public boolean match(String text)
+	{
+		if (maxEdits == 0)
+		{
+			return matchExact(text);
+		}
+
+		int length = query.length();
+		int limit = maxEdits + 1;
+		for (int i = 0; i <= length; i++)
+		{
+			previousCosts[i] = Math.min(i, limit);
+			previousStarts[i] = 0;
+		}
+
+		int bestEdits = previousCosts[length];
+		int bestStart = 0;
+		boolean isBestWordStart = true;
+		for (int j = 1; j <= text.length(); j++)
+		{
+			char c = text.charAt(j - 1);
+			costs[0] = 0;
+			starts[0] = j;
+			for (int i = 1; i <= length; i++)
+			{
+				int cost = previousCosts[i - 1] + (query.charAt(i - 1) == c ? 0 : 1);
+				int costStart = previousStarts[i - 1];
+				if (previousCosts[i] + 1 < cost)
+				{
+					cost = previousCosts[i] + 1;
+					costStart = previousStarts[i];
+				}
+				if (costs[i - 1] + 1 < cost)
+				{
+					cost = costs[i - 1] + 1;
+					costStart = starts[i - 1];
+				}
+				costs[i] = Math.min(cost, limit);
+				starts[i] = costStart;
+			}
+
+			int candidateEdits = costs[length];
+			if (candidateEdits < bestEdits || (candidateEdits == bestEdits && !isBestWordStart && isWordStart(text, starts[length])))
+			{
+				bestEdits = candidateEdits;
+				bestStart = starts[length];
+				isBestWordStart = isWordStart(text, bestStart);
+			}
+
+			int[] swap = previousCosts;
+			previousCosts = costs;
+			costs = swap;
+			swap = previousStarts;
+			previousStarts = starts;
+			starts = swap;
+		}
+
+		if (bestEdits > maxEdits)
+		{
+			return false;
+		}
+		edits = bestEdits;
+		start = bestStart;
+		return true;
+	}
+
+	private boolean matchExact(String text)
+	{
+		int index = text.indexOf(query);
+		if (index == -1)
+		{
+			return false;
+		}
+		edits = 0;
+		start = index;
+		// Prefer an occurrence that starts a word
+		for (int next = index; next != -1; next = text.indexOf(query, next + 1))
+		{
+			if (isWordStart(text, next))
+			{
+				start = next;
+				break;
+			}
+		}
+		return true;
+	}
+
+	public static boolean isWordStart(String text, int index)
+	{
+		return index == 0 || (index < text.length() && !Character.isLetterOrDigit(text.charAt(index - 1)));
+	}
+}
@@ -0,0 +1,21 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.BitSet;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Rows of a task type load matching a search, with their relevance. Must not be modified.
+ */
+@Getter
+@RequiredArgsConstructor
+public class TaskSearchResult
+{
+	private final String query;
+	private final int maxEdits;
+	private final BitSet matches;
+	/**
+	 * Relevance by row, higher first, 0 for rows that do not match
+	 */
+	private final int[] scores;
+}
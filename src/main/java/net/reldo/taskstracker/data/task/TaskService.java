@@ -1,25 +1,24 @@
 package net.reldo.taskstracker.data.task;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.reldo.taskstracker.TasksTrackerPlugin;
+import net.reldo.taskstracker.data.jsondatastore.DataStoreExecutor;
 import net.reldo.taskstracker.data.jsondatastore.ManifestClient;
 import net.reldo.taskstracker.data.jsondatastore.TaskDataClient;
 import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
 import net.reldo.taskstracker.data.jsondatastore.types.FilterValueType;
-import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinition;
 import net.reldo.taskstracker.data.task.filters.FilterService;
 import net.runelite.api.Client;
 import net.runelite.api.EnumComposition;
@@ -36,18 +35,24 @@ public class TaskService
 	@Inject private Client client;
 	@Inject private FilterService filterService;
 	@Inject private ConfigManager configManager;
+	@Inject private TaskSnapshotStore taskSnapshotStore;
+	@Inject private TaskStructLoader taskStructLoader;
+	@Inject private DataStoreExecutor dataStoreExecutor;
 
 	@Getter
 	@Setter
 	private boolean taskTypeChanged = false;
+	/**
+	 * The selected task type, which may still be loading; see {@link #getTaskSet()} for the loaded one
+	 */
 	@Getter
-	private TaskType currentTaskType;
-	@Getter
-	private final List<TaskFromStruct> tasks = new ArrayList<>();
-	@Getter
-	private final HashMap<String, int[]> sortedIndexes = new HashMap<>();
+	private volatile TaskType currentTaskType;
+	private final AtomicReference<TaskSet> taskSet = new AtomicReference<>(TaskSet.EMPTY);
+	/**
+	 * Incremented by each task type switch, so a load superseded by a newer one stops at its next stage
+	 */
+	private final AtomicInteger loadGeneration = new AtomicInteger();
 	private HashMap<String, TaskType> _taskTypes = new HashMap<>();
-	private HashSet<Integer> currentTaskTypeVarps = new HashSet<>();
 
     public CompletableFuture<Boolean> setTaskType(String taskTypeJsonName) {
         TaskType newTaskType = getTaskTypesByJsonName().get(taskTypeJsonName);
@@ -58,26 +63,13 @@ public class TaskService
         return this.setTaskType(newTaskType);
     }
 
-    private CompletableFuture<Boolean> loadAllTasksStructData(Collection<TaskFromStruct> tasks) {
-        Collection<CompletableFuture<Boolean>> taskFutures = new ArrayList<>();
-        for (TaskFromStruct task : tasks) {
-            CompletableFuture<Boolean> taskFuture = new CompletableFuture<>();
-            clientThread.invoke(() -> {
-                boolean isTaskLoaded = task.loadStructData(client);
-                taskFuture.complete(isTaskLoaded);
-            });
-            taskFutures.add(taskFuture);
-        }
-        return CompletableFuture.allOf(taskFutures.toArray(new CompletableFuture[0])).thenApply(v -> {
-            for (CompletableFuture<Boolean> future : taskFutures) {
-                if (!future.join()) {
-                    return false;
-                }
-            }
-            return true;
-        });
-    }
-
+    /**
+     * Load a task type and publish it as the current task set. Selecting another task type before the load completes
+     * supersedes it: the superseded load stops at its next stage, cancels its struct load, drops its partial tasks and
+     * resolves to false without publishing.
+     *
+     * @return a future resolving to whether the task type was loaded and published
+     */
     public CompletableFuture<Boolean> setTaskType(TaskType newTaskType) {
         log.debug("setTaskType {}", newTaskType.getTaskJsonName());
         if (newTaskType.equals(currentTaskType)) {
@@ -87,105 +79,169 @@ public class TaskService
         currentTaskType = newTaskType;
         configManager.setConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, "taskTypeJsonName", newTaskType.getTaskJsonName());
 
-        // Complete creation of any GLOBAL value type filterConfigs
-        for (FilterConfig filterConfig : currentTaskType.getFilters()) {
-            if (filterConfig.getValueType().equals(FilterValueType.GLOBAL)) {
-                // Set valueType to the one required by the global filter
-                FilterConfig globalFilterConfig = filterService.getGlobalFilterByKey(filterConfig.getConfigKey());
-                filterConfig.setValueType(globalFilterConfig.getValueType());
+        // Prefetches would compete with the load for the network and the data store executor
+        taskDataClient.cancelPrefetches();
 
-					// Set any filterConfig fields not already specified
-					Optional.ofNullable(filterConfig.getLabel()).ifPresentOrElse(val -> {}, () -> filterConfig.setLabel(globalFilterConfig.getLabel()));
-					Optional.ofNullable(filterConfig.getFilterType()).ifPresentOrElse(val -> {}, () -> filterConfig.setFilterType(globalFilterConfig.getFilterType()));
-					Optional.ofNullable(filterConfig.getValueName()).ifPresentOrElse(val -> {}, () -> filterConfig.setValueName(globalFilterConfig.getValueName()));
-					Optional.ofNullable(filterConfig.getOptionLabelEnum()).ifPresentOrElse(val -> {}, () -> filterConfig.setOptionLabelEnum(globalFilterConfig.getOptionLabelEnum()));
-					Optional.ofNullable(filterConfig.getCustomItems()).ifPresentOrElse(val -> {}, () -> filterConfig.setCustomItems(globalFilterConfig.getCustomItems()));
-				}
-			}
+        int generation;
+        synchronized (this) {
+            generation = loadGeneration.incrementAndGet();
+        }
+        BooleanSupplier isSuperseded = () -> loadGeneration.get() != generation;
 
+        // A snapshot holds the resolved filters, tier points and struct data, so only sprites are loaded from the client
+        TaskType loadingTaskType = currentTaskType;
         List<TaskFromStruct> newTasks = new ArrayList<>();
-        return newTaskType.loadTaskTypeDataAsync().thenCompose((isTaskTypeLoaded) -> {
-            if (!isTaskTypeLoaded) {
-                log.error("Error loading task type during setTaskType");
+        TaskParamStore[] newParamStore = new TaskParamStore[1];
+        String[] snapshotKey = new String[1];
+        return CompletableFuture.supplyAsync(() -> {
+            if (isSuperseded.getAsBoolean()) {
+                return null;
+            }
+            // Keyed by the task file version at load start, which is the version the load reads
+            snapshotKey[0] = taskSnapshotStore.getKey(loadingTaskType);
+            return taskSnapshotStore.read(loadingTaskType, snapshotKey[0]);
+        }, dataStoreExecutor).thenCompose(snapshot -> {
+            if (isSuperseded.getAsBoolean()) {
                 return CompletableFuture.completedFuture(false);
             }
+            if (snapshot != null) {
+                loadingTaskType.setFilters(snapshot.getFilters());
+                loadingTaskType.getTierPoints().putAll(snapshot.getTierPoints());
+            } else {
+                resolveGlobalFilters(loadingTaskType);
+            }
 
-            try {
-                Collection<TaskDefinition> taskDefinitions = taskDataClient.getTaskDefinitions(currentTaskType.getTaskJsonName());
-                for (TaskDefinition definition : taskDefinitions) {
-                    TaskFromStruct task = new TaskFromStruct(currentTaskType, definition);
-                    newTasks.add(task);
+            return loadingTaskType.loadTaskTypeDataAsync().thenCompose((isTaskTypeLoaded) -> {
+                if (!isTaskTypeLoaded) {
+                    log.error("Error loading task type during setTaskType");
+                    return CompletableFuture.completedFuture(false);
+                }
+                if (isSuperseded.getAsBoolean()) {
+                    return CompletableFuture.completedFuture(false);
                 }
-                return loadAllTasksStructData(newTasks);
-            } catch (Exception e3) {
-                return CompletableFuture.failedFuture(e3);
-            }
-        }).thenCompose(areTasksLoaded -> {
-            if (!areTasksLoaded) {
-                return CompletableFuture.completedFuture(false);
-            }
 
-            tasks.clear();
-            tasks.addAll(newTasks);
+                if (snapshot != null) {
+                    newTasks.addAll(snapshot.getTasks());
+                    newParamStore[0] = snapshot.getParamStore();
+                    return CompletableFuture.completedFuture(true);
+                }
 
-            // Index task list for each property
-            sortedIndexes.clear();
-            currentTaskType.getIntParamMap().keySet().forEach(paramName -> {
-                sortedIndexes.put(paramName, null);
-                addSortedIndex(paramName, Comparator.comparingInt((TaskFromStruct task) -> task.getIntParam(paramName)));
-            });
-            currentTaskType.getStringParamMap().keySet().forEach(paramName -> {
-                sortedIndexes.put(paramName, null);
-                addSortedIndex(paramName, Comparator.comparing((TaskFromStruct task) -> task.getStringParam(paramName)));
+                // Struct data is loaded on the client thread while the task file is still being streamed
+                TaskParamStore paramStore = new TaskParamStore(loadingTaskType);
+                newParamStore[0] = paramStore;
+                TaskStructLoader.StructLoad structLoad = taskStructLoader.begin(loadingTaskType.getTaskJsonName());
+                return taskDataClient.streamTaskDefinitionsAsync(loadingTaskType.getTaskJsonName(), isSuperseded, definition -> {
+                    TaskFromStruct task = new TaskFromStruct(loadingTaskType, paramStore, definition);
+                    newTasks.add(task);
+                    structLoad.add(task);
+                }).handle((taskCount, ex) -> {
+                    // Finished exactly once, also when streaming failed, so the client thread job always ends
+                    if (ex != null || isSuperseded.getAsBoolean()) {
+                        structLoad.cancel();
+                    }
+                    CompletableFuture<Boolean> structsLoaded = structLoad.finish();
+                    if (ex != null) {
+                        return CompletableFuture.<Boolean>failedFuture(ex);
+                    }
+                    log.debug("streamed {} task definitions for {}", taskCount, loadingTaskType.getTaskJsonName());
+                    return structsLoaded;
+                }).thenCompose(structsLoaded -> structsLoaded).thenApply(areTasksLoaded -> {
+                    if (areTasksLoaded && !isSuperseded.getAsBoolean()) {
+                        List<TaskFromStruct> loadedTasks = new ArrayList<>(newTasks);
+                        dataStoreExecutor.execute(() -> taskSnapshotStore.write(loadingTaskType, snapshotKey[0], paramStore, loadedTasks));
+                    }
+                    return areTasksLoaded;
+                });
             });
-            // todo: make this less of a special case.
-            if (tasks.stream().anyMatch(task -> task.getCompletionPercent() != null)) {
-                sortedIndexes.put("completion %", null);
-                addSortedIndex("completion %",
-                        (TaskFromStruct task1, TaskFromStruct task2) ->
-                        {
-                            Float comp1 = task1.getTaskDefinition().getCompletionPercent() != null ? task1.getTaskDefinition().getCompletionPercent() : 0;
-                            Float comp2 = task2.getTaskDefinition().getCompletionPercent() != null ? task2.getTaskDefinition().getCompletionPercent() : 0;
-                            return comp1.compareTo(comp2);
-                        });
+        }).thenApplyAsync(areTasksLoaded -> {
+            // Indexes are built on the data store executor, the struct path completes on the client thread
+            if (!areTasksLoaded || isSuperseded.getAsBoolean()) {
+                if (isSuperseded.getAsBoolean()) {
+                    log.debug("load of {} superseded, not publishing", loadingTaskType.getTaskJsonName());
+                }
+                newTasks.clear();
+                return null;
             }
-
-            currentTaskTypeVarps.clear();
-            currentTaskTypeVarps = new HashSet<>(currentTaskType.getTaskVarps());
-
-            taskTypeChanged = true;
-            return CompletableFuture.completedFuture(true);
+            return TaskSet.build(loadingTaskType, newTasks, newParamStore[0]);
+        }, dataStoreExecutor).thenApply(newTaskSet -> {
+            if (newTaskSet == null) {
+                return false;
+            }
+            synchronized (this) {
+                // Checked under the lock taken to supersede loads, so a superseded load can never publish
+                if (isSuperseded.getAsBoolean()) {
+                    log.debug("load of {} superseded, not publishing", loadingTaskType.getTaskJsonName());
+                    return false;
+                }
+                filterService.setTaskType(loadingTaskType, newTaskSet.getParamStore(), newTaskSet.getBitmapIndex(), newTaskSet.getSearchIndex());
+                // Readers holding the previous set keep a consistent view of it
+                taskSet.set(newTaskSet);
+                taskTypeChanged = true;
+            }
+            return true;
         });
     }
 
-	private void addSortedIndex(String paramName, Comparator<TaskFromStruct> comparator)
+	/**
+	 * Complete creation of any GLOBAL value type filterConfigs
+	 */
+	private void resolveGlobalFilters(TaskType taskType)
 	{
-		List<TaskFromStruct> sortedTasks = tasks.stream()
-				.sorted(comparator)
-				.collect(Collectors.toCollection(ArrayList::new));
-		int[] sortedIndex = new int[tasks.size()];
-		for(int i = 0; i < sortedTasks.size(); i++)
+		for (FilterConfig filterConfig : taskType.getFilters())
 		{
-			sortedIndex[i] = tasks.indexOf(sortedTasks.get(i));
+			if (filterConfig.getValueType().equals(FilterValueType.GLOBAL))
+			{
+				// Set valueType to the one required by the global filter
+				FilterConfig globalFilterConfig = filterService.getGlobalFilterByKey(filterConfig.getConfigKey());
+				filterConfig.setValueType(globalFilterConfig.getValueType());
+
+				// Set any filterConfig fields not already specified
+				Optional.ofNullable(filterConfig.getLabel()).ifPresentOrElse(val -> {}, () -> filterConfig.setLabel(globalFilterConfig.getLabel()));
+				Optional.ofNullable(filterConfig.getFilterType()).ifPresentOrElse(val -> {}, () -> filterConfig.setFilterType(globalFilterConfig.getFilterType()));
+				Optional.ofNullable(filterConfig.getValueName()).ifPresentOrElse(val -> {}, () -> filterConfig.setValueName(globalFilterConfig.getValueName()));
+				Optional.ofNullable(filterConfig.getOptionLabelEnum()).ifPresentOrElse(val -> {}, () -> filterConfig.setOptionLabelEnum(globalFilterConfig.getOptionLabelEnum()));
+				Optional.ofNullable(filterConfig.getCustomItems()).ifPresentOrElse(val -> {}, () -> filterConfig.setCustomItems(globalFilterConfig.getCustomItems()));
+			}
 		}
-		sortedIndexes.put(paramName, sortedIndex);
 	}
 
-	public int getSortedTaskIndex(String sortCriteria, int position)
+	/**
+	 * @return the snapshot of the loaded task type, which a task type switch replaces as a whole
+	 */
+	public TaskSet getTaskSet()
 	{
-		if(sortedIndexes.containsKey(sortCriteria))
-		{
-			return sortedIndexes.get(sortCriteria)[position];
-		}
-		else
-		{
-			return position;
-		}
+		return taskSet.get();
+	}
+
+	/**
+	 * @return the tasks of the loaded task type. Must not be modified.
+	 */
+	public List<TaskFromStruct> getTasks()
+	{
+		return taskSet.get().getTasks();
+	}
+
+	public TaskSortIndex getSortIndex()
+	{
+		return taskSet.get().getSortIndex();
+	}
+
+	public TaskSkillIndex getSkillIndex()
+	{
+		return taskSet.get().getSkillIndex();
+	}
+
+	/**
+	 * @return the task of the loaded task type with a task id, or null if there is none
+	 */
+	public TaskFromStruct getTaskById(int taskId)
+	{
+		return taskSet.get().getTaskById(taskId);
 	}
 
 	public boolean isVarpInCurrentTaskType(int varpId)
 	{
-		return currentTaskTypeVarps.contains(varpId);
+		return taskSet.get().isTaskVarp(varpId);
 	}
 
 	public void clearTaskTypes()
@@ -193,6 +249,41 @@ public class TaskService
 		this._taskTypes.clear();
 	}
 
+	/**
+	 * Fetch the task types without blocking the calling thread. Resolves to the same map as
+	 * {@link #getTaskTypesByJsonName()} once loaded.
+	 */
+	public CompletableFuture<HashMap<String, TaskType>> loadTaskTypesAsync()
+	{
+		if (_taskTypes.size() > 0)
+		{
+			return CompletableFuture.completedFuture(_taskTypes);
+		}
+		return taskDataClient.getTaskTypesAsync().thenApply(taskTypes -> {
+			_taskTypes = taskTypes;
+			return taskTypes;
+		});
+	}
+
+	/**
+	 * Fetch the task file of every enabled task type in the background, so switching task type reads from cache.
+	 * The current task type is included so a changed task file invalidates its snapshot on the next launch.
+	 */
+	public void prefetchTaskDefinitions()
+	{
+		for (TaskType taskType : _taskTypes.values())
+		{
+			if (!taskType.isEnabled())
+			{
+				continue;
+			}
+			taskDataClient.prefetchTaskDefinitionsAsync(taskType.getTaskJsonName()).exceptionally(ex -> {
+				log.warn("Unable to prefetch tasks for {}", taskType.getTaskJsonName(), ex);
+				return null;
+			});
+		}
+	}
+
 	/**
 	 * Get a map of task type json names to task type
 	 *
@@ -249,15 +340,17 @@ public class TaskService
 
 	public void applySave(TaskType saveTaskType, HashMap<Integer, ConfigTaskSave> saveData)
 	{
-		String currentTaskTypeName = currentTaskType.getTaskJsonName();
+		// Applied to the loaded tasks, which lag the selected task type while it loads
+		TaskSet loadedTaskSet = taskSet.get();
+		String currentTaskTypeName = loadedTaskSet.getTaskType() != null ? loadedTaskSet.getTaskType().getTaskJsonName() : null;
 		String saveTaskTypeName = saveTaskType.getTaskJsonName();
-		if (!currentTaskTypeName.equals(saveTaskTypeName))
+		if (!saveTaskTypeName.equals(currentTaskTypeName))
 		{
 			log.warn("Cannot apply save, task types do not match current={} save={}", currentTaskTypeName, saveTaskTypeName);
 			return;
 		}
 
-		for (TaskFromStruct task : getTasks())
+		for (TaskFromStruct task : loadedTaskSet.getTasks())
 		{
 			ConfigTaskSave configTaskSave = saveData.get(task.getStructId());
 			if (configTaskSave == null)
@@ -268,15 +361,29 @@ public class TaskService
 		}
 	}
 
-	public List<TaskFromStruct> getTasksFromVarpId(Integer varpId)
+	/**
+	 * Apply saves identified by task id, as decoded from the compact save encoding
+	 */
+	public void applySave(TaskType saveTaskType, List<ConfigTaskSave> saveData)
 	{
-		int varpIndex = getCurrentTaskType().getTaskVarps().indexOf(varpId);
-		int minTaskId = varpIndex * 32;
-		int maxTaskId = minTaskId + 32;
+		// Applied to the loaded tasks, which lag the selected task type while it loads
+		TaskSet loadedTaskSet = taskSet.get();
+		String currentTaskTypeName = loadedTaskSet.getTaskType() != null ? loadedTaskSet.getTaskType().getTaskJsonName() : null;
+		String saveTaskTypeName = saveTaskType.getTaskJsonName();
+		if (!saveTaskTypeName.equals(currentTaskTypeName))
+		{
+			log.warn("Cannot apply save, task types do not match current={} save={}", currentTaskTypeName, saveTaskTypeName);
+			return;
+		}
 
-		return getTasks().stream().filter(t -> {
-			int taskId = t.getIntParam("id");
-			return taskId >= minTaskId && taskId <= maxTaskId;
-		}).collect(Collectors.toList());
+		for (ConfigTaskSave configTaskSave : saveData)
+		{
+			TaskFromStruct task = loadedTaskSet.getTaskById(configTaskSave.taskId);
+			if (task == null)
+			{
+				continue;
+			}
+			task.loadConfigSave(configTaskSave);
+		}
 	}
 }
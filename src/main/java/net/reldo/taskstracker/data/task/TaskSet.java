@@ -0,0 +1,171 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable snapshot of a loaded task type: its tasks, their param store and the indexes built over them. Published
+ * by {@link TaskService} with a single reference swap once a load completes, so a reader on any thread that holds a
+ * task set sees tasks and indexes of the same load without locking.
+ * <p>
+ * Task state, completed, tracked and ignored, is not part of the snapshot. It stays on the tasks and in the state
+ * bitsets of the param store, which the snapshot shares with the tasks.
+ */
+@Slf4j
+public class TaskSet
+{
+	private static final TaskFromStruct[] NO_TASKS = new TaskFromStruct[0];
+
+	/**
+	 * Task set of no task type, published before the first load completes
+	 */
+	public static final TaskSet EMPTY = new TaskSet(null, Collections.emptyList(), null, new TaskFromStruct[0][], NO_TASKS,
+		null, null, null, null);
+
+	@Getter
+	private final TaskType taskType;
+	@Getter
+	private final List<TaskFromStruct> tasks;
+	@Getter
+	private final TaskParamStore paramStore;
+	/**
+	 * Tasks indexed by varp id, then by bit position within the varp. Must not be modified.
+	 */
+	@Getter
+	private final TaskFromStruct[][] varpTaskIndex;
+	private final TaskFromStruct[] tasksById;
+	@Getter
+	private final TaskBitmapIndex bitmapIndex;
+	@Getter
+	private final TaskSearchIndex searchIndex;
+	@Getter
+	private final TaskSortIndex sortIndex;
+	@Getter
+	private final TaskSkillIndex skillIndex;
+
+	private TaskSet(TaskType taskType, List<TaskFromStruct> tasks, TaskParamStore paramStore, TaskFromStruct[][] varpTaskIndex,
+		TaskFromStruct[] tasksById, TaskBitmapIndex bitmapIndex, TaskSearchIndex searchIndex, TaskSortIndex sortIndex,
+		TaskSkillIndex skillIndex)
+	{
+		this.taskType = taskType;
+		this.tasks = tasks;
+		this.paramStore = paramStore;
+		this.varpTaskIndex = varpTaskIndex;
+		this.tasksById = tasksById;
+		this.bitmapIndex = bitmapIndex;
+		this.searchIndex = searchIndex;
+		this.sortIndex = sortIndex;
+		this.skillIndex = skillIndex;
+	}
+
+	/**
+	 * Build the snapshot of a completed load, indexing its tasks
+	 */
+	public static TaskSet build(TaskType taskType, List<TaskFromStruct> loadedTasks, TaskParamStore paramStore)
+	{
+		List<TaskFromStruct> tasks = Collections.unmodifiableList(new ArrayList<>(loadedTasks));
+		return new TaskSet(
+			taskType,
+			tasks,
+			paramStore,
+			buildVarpTaskIndex(taskType, tasks),
+			buildTasksById(tasks),
+			TaskBitmapIndex.build(paramStore, taskType.getFilters()),
+			TaskSearchIndex.build(paramStore, tasks),
+			// Sort orders are built when first selected
+			new TaskSortIndex(tasks, paramStore),
+			TaskSkillIndex.build(paramStore, tasks)
+		);
+	}
+
+	/**
+	 * @param sortCriteria criteria in order of precedence, unknown ones such as "default" are skipped
+	 * @return positions in {@link #getTasks()} in ascending sort order, or null to keep the list order. Must not be
+	 * modified.
+	 */
+	public int[] getSortOrder(List<String> sortCriteria)
+	{
+		return sortIndex != null ? sortIndex.get(sortCriteria) : null;
+	}
+
+	/**
+	 * @return the task with a task id, or null if there is none
+	 */
+	public TaskFromStruct getTaskById(int taskId)
+	{
+		return taskId >= 0 && taskId < tasksById.length ? tasksById[taskId] : null;
+	}
+
+	/**
+	 * Get the tasks completed by the bits of a varp
+	 *
+	 * @return tasks indexed by bit position, with null for unused bits; empty if the varp is not a task varp
+	 */
+	public TaskFromStruct[] getTasksByVarpId(int varpId)
+	{
+		if (!isTaskVarp(varpId))
+		{
+			return NO_TASKS;
+		}
+		return varpTaskIndex[varpId];
+	}
+
+	public boolean isTaskVarp(int varpId)
+	{
+		return varpId >= 0 && varpId < varpTaskIndex.length && varpTaskIndex[varpId] != null;
+	}
+
+	private static TaskFromStruct[][] buildVarpTaskIndex(TaskType taskType, List<TaskFromStruct> tasks)
+	{
+		List<Integer> taskVarps = taskType.getTaskVarps();
+		int maxVarpId = -1;
+		for (int varpId : taskVarps)
+		{
+			maxVarpId = Math.max(maxVarpId, varpId);
+		}
+
+		TaskFromStruct[][] index = new TaskFromStruct[maxVarpId + 1][];
+		for (int varpId : taskVarps)
+		{
+			index[varpId] = new TaskFromStruct[32];
+		}
+		for (TaskFromStruct task : tasks)
+		{
+			int taskId = task.getId();
+			if (taskId < 0)
+			{
+				// Warned about once, by buildTasksById
+				continue;
+			}
+			int varpIndex = taskId / 32;
+			if (varpIndex < taskVarps.size())
+			{
+				index[taskVarps.get(varpIndex)][taskId % 32] = task;
+			}
+		}
+		return index;
+	}
+
+	private static TaskFromStruct[] buildTasksById(List<TaskFromStruct> tasks)
+	{
+		int maxTaskId = -1;
+		for (TaskFromStruct task : tasks)
+		{
+			maxTaskId = Math.max(maxTaskId, task.getId());
+		}
+		TaskFromStruct[] index = new TaskFromStruct[maxTaskId + 1];
+		for (TaskFromStruct task : tasks)
+		{
+			if (task.getId() < 0)
+			{
+				log.warn("task {} has no id, not indexed", task.getName());
+				continue;
+			}
+			index[task.getId()] = task;
+		}
+		return index;
+	}
+}
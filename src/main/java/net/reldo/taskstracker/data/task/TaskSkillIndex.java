@@ -0,0 +1,221 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinitionSkill;
+import net.runelite.api.Skill;
+
+/**
+ * Skill requirements of the tasks of one task type load, parsed once into skill ordinals and levels, with the tasks
+ * requiring each skill. Tracks whether each task is qualified for with the last applied player levels, so a level
+ * change only re-evaluates the tasks requiring the changed skill. Tasks are qualified for until levels are applied.
+ * <p>
+ * Requirements on names that are not a {@link Skill}, e.g. "SKILLS" or "TOTAL LEVEL", are not indexed.
+ */
+@Slf4j
+public class TaskSkillIndex
+{
+	private static final int[] NONE = new int[0];
+	private static final int SKILL_COUNT = Skill.values().length;
+
+	private final TaskFromStruct[] tasksByRow;
+	private final int[][] skillOrdinalsByRow;
+	private final int[][] levelsByRow;
+	private final int[][] rowsBySkill;
+	private final int[][] levelsBySkill;
+
+	private final int[] unmetCounts;
+	private final int[] unqualifiedCounts = new int[SKILL_COUNT];
+	private int[] playerLevels;
+
+	private TaskSkillIndex(TaskFromStruct[] tasksByRow, int[][] skillOrdinalsByRow, int[][] levelsByRow, int[][] rowsBySkill, int[][] levelsBySkill)
+	{
+		this.tasksByRow = tasksByRow;
+		this.skillOrdinalsByRow = skillOrdinalsByRow;
+		this.levelsByRow = levelsByRow;
+		this.rowsBySkill = rowsBySkill;
+		this.levelsBySkill = levelsBySkill;
+		unmetCounts = new int[tasksByRow.length];
+	}
+
+	public static TaskSkillIndex build(TaskParamStore paramStore, List<TaskFromStruct> tasks)
+	{
+		int size = paramStore.size();
+		TaskFromStruct[] tasksByRow = new TaskFromStruct[size];
+		int[][] skillOrdinalsByRow = new int[size][];
+		int[][] levelsByRow = new int[size][];
+		List<List<int[]>> requirementsBySkill = new ArrayList<>(SKILL_COUNT);
+		for (int i = 0; i < SKILL_COUNT; i++)
+		{
+			requirementsBySkill.add(new ArrayList<>());
+		}
+
+		for (TaskFromStruct task : tasks)
+		{
+			int row = task.getRow();
+			tasksByRow[row] = task;
+
+			// Highest level required of each skill
+			int[] requiredLevels = new int[SKILL_COUNT];
+			List<TaskDefinitionSkill> requiredSkills = task.getTaskDefinition().getSkills();
+			if (requiredSkills != null)
+			{
+				for (TaskDefinitionSkill requiredSkill : requiredSkills)
+				{
+					int ordinal = getSkillOrdinal(requiredSkill.getSkill());
+					if (ordinal == -1 || requiredSkill.getLevel() == null)
+					{
+						log.debug("task {} skill requirement {} not indexed", task.getId(), requiredSkill.getSkill());
+						continue;
+					}
+					requiredLevels[ordinal] = Math.max(requiredLevels[ordinal], requiredSkill.getLevel());
+				}
+			}
+
+			int count = 0;
+			for (int level : requiredLevels)
+			{
+				count += level > 0 ? 1 : 0;
+			}
+			int[] skillOrdinals = count == 0 ? NONE : new int[count];
+			int[] levels = count == 0 ? NONE : new int[count];
+			for (int ordinal = 0, i = 0; ordinal < SKILL_COUNT; ordinal++)
+			{
+				if (requiredLevels[ordinal] > 0)
+				{
+					skillOrdinals[i] = ordinal;
+					levels[i++] = requiredLevels[ordinal];
+					requirementsBySkill.get(ordinal).add(new int[]{row, requiredLevels[ordinal]});
+				}
+			}
+			skillOrdinalsByRow[row] = skillOrdinals;
+			levelsByRow[row] = levels;
+		}
+
+		int[][] rowsBySkill = new int[SKILL_COUNT][];
+		int[][] levelsBySkill = new int[SKILL_COUNT][];
+		for (int ordinal = 0; ordinal < SKILL_COUNT; ordinal++)
+		{
+			List<int[]> requirements = requirementsBySkill.get(ordinal);
+			rowsBySkill[ordinal] = new int[requirements.size()];
+			levelsBySkill[ordinal] = new int[requirements.size()];
+			for (int i = 0; i < requirements.size(); i++)
+			{
+				rowsBySkill[ordinal][i] = requirements.get(i)[0];
+				levelsBySkill[ordinal][i] = requirements.get(i)[1];
+			}
+		}
+		return new TaskSkillIndex(tasksByRow, skillOrdinalsByRow, levelsByRow, rowsBySkill, levelsBySkill);
+	}
+
+	private static int getSkillOrdinal(String skillName)
+	{
+		if (skillName == null)
+		{
+			return -1;
+		}
+		try
+		{
+			return Skill.valueOf(skillName.toUpperCase()).ordinal();
+		}
+		catch (IllegalArgumentException ex)
+		{
+			return -1;
+		}
+	}
+
+	/**
+	 * Apply player levels, re-evaluating only the tasks requiring skills whose level changed
+	 *
+	 * @param levels player levels by skill ordinal
+	 * @return the tasks whose qualification changed
+	 */
+	public synchronized List<TaskFromStruct> update(int[] levels)
+	{
+		List<TaskFromStruct> changedTasks = new ArrayList<>();
+		BitSet changedRows = new BitSet(tasksByRow.length);
+		for (int ordinal = 0; ordinal < Math.min(SKILL_COUNT, levels.length); ordinal++)
+		{
+			int previousLevel = playerLevels != null ? playerLevels[ordinal] : Integer.MAX_VALUE;
+			int level = levels[ordinal];
+			if (level == previousLevel)
+			{
+				continue;
+			}
+
+			int[] rows = rowsBySkill[ordinal];
+			int[] requiredLevels = levelsBySkill[ordinal];
+			for (int i = 0; i < rows.length; i++)
+			{
+				boolean wasMet = previousLevel >= requiredLevels[i];
+				boolean isMet = level >= requiredLevels[i];
+				if (wasMet == isMet)
+				{
+					continue;
+				}
+
+				int row = rows[i];
+				boolean wasQualified = unmetCounts[row] == 0;
+				unmetCounts[row] += isMet ? -1 : 1;
+				unqualifiedCounts[ordinal] += isMet ? -1 : 1;
+				if (wasQualified != (unmetCounts[row] == 0) && !changedRows.get(row))
+				{
+					changedRows.set(row);
+					changedTasks.add(tasksByRow[row]);
+				}
+			}
+		}
+
+		if (playerLevels == null)
+		{
+			playerLevels = new int[SKILL_COUNT];
+		}
+		System.arraycopy(levels, 0, playerLevels, 0, Math.min(SKILL_COUNT, levels.length));
+		return changedTasks;
+	}
+
+	/**
+	 * @return whether the player meets every skill requirement of a task with the last applied levels
+	 */
+	public synchronized boolean isQualified(TaskFromStruct task)
+	{
+		int row = task.getRow();
+		return row >= unmetCounts.length || tasksByRow[row] != task || unmetCounts[row] == 0;
+	}
+
+	/**
+	 * @return the skill ordinals required by a task, in ordinal order. Must not be modified.
+	 */
+	public int[] getSkillOrdinals(TaskFromStruct task)
+	{
+		int row = task.getRow();
+		return row < tasksByRow.length && tasksByRow[row] == task ? skillOrdinalsByRow[row] : NONE;
+	}
+
+	/**
+	 * @return the levels required by a task, matching {@link #getSkillOrdinals}. Must not be modified.
+	 */
+	public int[] getLevels(TaskFromStruct task)
+	{
+		int row = task.getRow();
+		return row < tasksByRow.length && tasksByRow[row] == task ? levelsByRow[row] : NONE;
+	}
+
+	/**
+	 * @return the number of tasks requiring a skill whose level the player meets
+	 */
+	public synchronized int getQualifiedCount(Skill skill)
+	{
+		return rowsBySkill[skill.ordinal()].length - unqualifiedCounts[skill.ordinal()];
+	}
+
+	/**
+	 * @return the number of tasks requiring a skill whose level the player does not meet
+	 */
+	public synchronized int getUnqualifiedCount(Skill skill)
+	{
+		return unqualifiedCounts[skill.ordinal()];
+	}
+}
@@ -0,0 +1,441 @@
+package net.reldo.taskstracker.data.task;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.data.jsondatastore.ManifestClient;
+import net.reldo.taskstracker.data.jsondatastore.reader.DataStoreReader;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterCustomItem;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterType;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterValueType;
+import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinition;
+import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinitionSkill;
+import net.runelite.api.Client;
+import net.runelite.client.RuneLite;
+
+/**
+ * Binary snapshot of a fully resolved task type: task definitions, struct params, tier points and filter configs.
+ * A snapshot is only used if it was written for the same task type, manifest, task file version and game revision,
+ * which lets a task type be activated without parsing json or looking up structs on the client thread.
+ * Task definition metadata is not part of the snapshot.
+ */
+@Singleton
+@Slf4j
+public class TaskSnapshotStore
+{
+	public static final File SNAPSHOT_DIR = new File(RuneLite.RUNELITE_DIR, "tasks-tracker" + File.separator + "snapshots");
+
+	private static final int MAGIC = 0x5454534E; // TTSN
+	private static final int FORMAT_VERSION = 1;
+	// Magic, format version and key length
+	private static final int HEADER_PREFIX_LENGTH = 12;
+
+	@Inject private Client client;
+	@Inject private ManifestClient manifestClient;
+	@Inject private DataStoreReader dataStoreReader;
+
+	// Overridden by tests
+	File snapshotDir = SNAPSHOT_DIR;
+
+	@Getter
+	@RequiredArgsConstructor
+	public static class Snapshot
+	{
+		private final List<TaskFromStruct> tasks;
+		private final TaskParamStore paramStore;
+		private final HashMap<Integer, Integer> tierPoints;
+		private final ArrayList<FilterConfig> filters;
+	}
+
+	/**
+	 * Get the key identifying the current manifest, task file version and game revision of a task type. Taken when a
+	 * load starts and passed to {@link #read} and {@link #write}, so a snapshot is keyed by the task file version the
+	 * load read, even if the file is replaced while it loads.
+	 *
+	 * @return the key, or null while the task file version is unknown, e.g. before the task file is first downloaded
+	 */
+	public String getKey(TaskType taskType)
+	{
+		String manifestHash = manifestClient.getManifestHash();
+		String tasksVersion = dataStoreReader.getTasksVersion(taskType.getTaskJsonName());
+		if (manifestHash == null || tasksVersion == null)
+		{
+			return null;
+		}
+		return String.join("|", taskType.getTaskJsonName(), manifestHash, tasksVersion, String.valueOf(client.getRevision()));
+	}
+
+	/**
+	 * Read the snapshot for a task type
+	 *
+	 * @param key key from {@link #getKey}, or null
+	 * @return the snapshot, or null if there is no snapshot written with the key
+	 */
+	public Snapshot read(TaskType taskType, String key)
+	{
+		File file = getFile(taskType);
+		if (key == null || !file.exists())
+		{
+			return null;
+		}
+
+		long start = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			int headerLength = readHeader(channel, key);
+			if (headerLength == -1)
+			{
+				log.debug("snapshot for {} is stale, ignoring", taskType.getTaskJsonName());
+				return null;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, headerLength, channel.size() - headerLength);
+
+			HashMap<Integer, Integer> tierPoints = new HashMap<>();
+			int tierCount = buffer.getInt();
+			for (int i = 0; i < tierCount; i++)
+			{
+				tierPoints.put(buffer.getInt(), buffer.getInt());
+			}
+
+			int filterCount = buffer.getInt();
+			ArrayList<FilterConfig> filters = new ArrayList<>(filterCount);
+			for (int i = 0; i < filterCount; i++)
+			{
+				filters.add(getFilterConfig(buffer));
+			}
+
+			String[] intParamNames = getStringArray(buffer);
+			String[] stringParamNames = getStringArray(buffer);
+
+			// Snapshot params are mapped by name onto the store's ordinals; params unknown to the store are skipped
+			TaskParamStore paramStore = new TaskParamStore(taskType);
+			int[] intOrdinals = new int[intParamNames.length];
+			for (int i = 0; i < intParamNames.length; i++)
+			{
+				intOrdinals[i] = paramStore.getIntOrdinal(intParamNames[i]);
+			}
+			int[] stringOrdinals = new int[stringParamNames.length];
+			for (int i = 0; i < stringParamNames.length; i++)
+			{
+				stringOrdinals[i] = paramStore.getStringOrdinal(stringParamNames[i]);
+			}
+
+			int taskCount = buffer.getInt();
+			List<TaskFromStruct> tasks = new ArrayList<>(taskCount);
+			for (int i = 0; i < taskCount; i++)
+			{
+				TaskDefinition definition = getTaskDefinition(buffer);
+				int[] intValues = new int[paramStore.getIntParamNames().length];
+				for (int ordinal : intOrdinals)
+				{
+					int value = buffer.getInt();
+					if (ordinal != -1)
+					{
+						intValues[ordinal] = value;
+					}
+				}
+				String[] stringValues = new String[paramStore.getStringParamNames().length];
+				for (int ordinal : stringOrdinals)
+				{
+					String value = getString(buffer);
+					if (ordinal != -1)
+					{
+						stringValues[ordinal] = value;
+					}
+				}
+				tasks.add(new TaskFromStruct(taskType, paramStore, definition, intValues, stringValues));
+			}
+
+			log.debug("read snapshot for {} with {} tasks in {}ms", taskType.getTaskJsonName(), taskCount, (System.nanoTime() - start) / 1_000_000);
+			return new Snapshot(tasks, paramStore, tierPoints, filters);
+		}
+		catch (Exception ex)
+		{
+			log.warn("Unable to read snapshot for {}, ignoring", taskType.getTaskJsonName(), ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Write a snapshot of a loaded task type. Tasks must have their struct data loaded.
+	 *
+	 * @param key key from {@link #getKey} taken when the load started, or null to not write a snapshot
+	 */
+	public void write(TaskType taskType, String key, TaskParamStore paramStore, List<TaskFromStruct> tasks)
+	{
+		if (key == null)
+		{
+			return;
+		}
+
+		File file = getFile(taskType);
+		File tempFile = null;
+		try
+		{
+			if (!snapshotDir.exists() && !snapshotDir.mkdirs())
+			{
+				throw new IOException("unable to create snapshot directory " + snapshotDir);
+			}
+			tempFile = File.createTempFile(file.getName(), ".tmp", snapshotDir);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+			{
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				putString(out, key);
+
+				out.writeInt(taskType.getTierPoints().size());
+				for (Map.Entry<Integer, Integer> tierPoint : taskType.getTierPoints().entrySet())
+				{
+					out.writeInt(tierPoint.getKey());
+					out.writeInt(tierPoint.getValue());
+				}
+
+				out.writeInt(taskType.getFilters().size());
+				for (FilterConfig filterConfig : taskType.getFilters())
+				{
+					putFilterConfig(out, filterConfig);
+				}
+
+				putStringArray(out, paramStore.getIntParamNames());
+				putStringArray(out, paramStore.getStringParamNames());
+
+				out.writeInt(tasks.size());
+				for (TaskFromStruct task : tasks)
+				{
+					putTaskDefinition(out, task.getTaskDefinition());
+					for (int ordinal = 0; ordinal < paramStore.getIntParamNames().length; ordinal++)
+					{
+						out.writeInt(task.getIntParam(ordinal));
+					}
+					for (int ordinal = 0; ordinal < paramStore.getStringParamNames().length; ordinal++)
+					{
+						putString(out, task.getStringParam(ordinal));
+					}
+				}
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			log.debug("wrote snapshot for {} with {} tasks", taskType.getTaskJsonName(), tasks.size());
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to write snapshot for {}", taskType.getTaskJsonName(), ex);
+		}
+		finally
+		{
+			if (tempFile != null)
+			{
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Read and check the header with a plain read, so a stale or foreign file is never mapped
+	 *
+	 * @return the length of the header, or -1 if the snapshot was not written with the key
+	 */
+	private static int readHeader(FileChannel channel, String key) throws IOException
+	{
+		byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_PREFIX_LENGTH + keyBytes.length);
+		while (header.hasRemaining() && channel.read(header) != -1)
+		{
+		}
+		if (header.hasRemaining())
+		{
+			return -1;
+		}
+		header.flip();
+		if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION || header.getInt() != keyBytes.length)
+		{
+			return -1;
+		}
+		byte[] fileKeyBytes = new byte[keyBytes.length];
+		header.get(fileKeyBytes);
+		return Arrays.equals(fileKeyBytes, keyBytes) ? header.limit() : -1;
+	}
+
+	private File getFile(TaskType taskType)
+	{
+		return new File(snapshotDir, taskType.getTaskJsonName() + ".bin");
+	}
+
+	private static void putTaskDefinition(DataOutputStream out, TaskDefinition definition) throws IOException
+	{
+		out.writeInt(definition.getStructId());
+		putNullableInt(out, definition.getSortId());
+		List<TaskDefinitionSkill> skills = definition.getSkills();
+		out.writeInt(skills != null ? skills.size() : -1);
+		if (skills != null)
+		{
+			for (TaskDefinitionSkill skill : skills)
+			{
+				putString(out, skill.getSkill());
+				putNullableInt(out, skill.getLevel());
+			}
+		}
+		putString(out, definition.getWikiNotes());
+		out.writeBoolean(definition.getCompletionPercent() != null);
+		if (definition.getCompletionPercent() != null)
+		{
+			out.writeFloat(definition.getCompletionPercent());
+		}
+	}
+
+	private static TaskDefinition getTaskDefinition(ByteBuffer buffer)
+	{
+		TaskDefinition definition = new TaskDefinition();
+		definition.setStructId(buffer.getInt());
+		definition.setSortId(getNullableInt(buffer));
+		int skillCount = buffer.getInt();
+		if (skillCount >= 0)
+		{
+			List<TaskDefinitionSkill> skills = new ArrayList<>(skillCount);
+			for (int i = 0; i < skillCount; i++)
+			{
+				TaskDefinitionSkill skill = new TaskDefinitionSkill();
+				skill.setSkill(getString(buffer));
+				skill.setLevel(getNullableInt(buffer));
+				skills.add(skill);
+			}
+			definition.setSkills(skills);
+		}
+		definition.setWikiNotes(getString(buffer));
+		if (buffer.get() != 0)
+		{
+			definition.setCompletionPercent(buffer.getFloat());
+		}
+		return definition;
+	}
+
+	private static void putFilterConfig(DataOutputStream out, FilterConfig filterConfig) throws IOException
+	{
+		putString(out, filterConfig.getConfigKey());
+		putString(out, filterConfig.getLabel());
+		out.writeInt(filterConfig.getFilterType() != null ? filterConfig.getFilterType().ordinal() : -1);
+		out.writeInt(filterConfig.getValueType() != null ? filterConfig.getValueType().ordinal() : -1);
+		putString(out, filterConfig.getValueName());
+		putString(out, filterConfig.getOptionLabelEnum());
+		List<FilterCustomItem> customItems = filterConfig.getCustomItems();
+		out.writeInt(customItems != null ? customItems.size() : -1);
+		if (customItems != null)
+		{
+			for (FilterCustomItem customItem : customItems)
+			{
+				putNullableInt(out, customItem.getValue());
+				putString(out, customItem.getTooltip());
+				putNullableInt(out, customItem.getSpriteId());
+			}
+		}
+	}
+
+	private static FilterConfig getFilterConfig(ByteBuffer buffer)
+	{
+		String configKey = getString(buffer);
+		String label = getString(buffer);
+		int filterType = buffer.getInt();
+		int valueType = buffer.getInt();
+		String valueName = getString(buffer);
+		String optionLabelEnum = getString(buffer);
+		int customItemCount = buffer.getInt();
+		ArrayList<FilterCustomItem> customItems = null;
+		if (customItemCount >= 0)
+		{
+			customItems = new ArrayList<>(customItemCount);
+			for (int i = 0; i < customItemCount; i++)
+			{
+				FilterCustomItem customItem = new FilterCustomItem();
+				customItem.setValue(getNullableInt(buffer));
+				customItem.setTooltip(getString(buffer));
+				customItem.setSpriteId(getNullableInt(buffer));
+				customItems.add(customItem);
+			}
+		}
+		return new FilterConfig(
+			configKey,
+			label,
+			filterType >= 0 ? FilterType.values()[filterType] : null,
+			valueType >= 0 ? FilterValueType.values()[valueType] : null,
+			valueName,
+			optionLabelEnum,
+			customItems
+		);
+	}
+
+	private static void putStringArray(DataOutputStream out, String[] values) throws IOException
+	{
+		out.writeInt(values.length);
+		for (String value : values)
+		{
+			putString(out, value);
+		}
+	}
+
+	private static String[] getStringArray(ByteBuffer buffer)
+	{
+		String[] values = new String[buffer.getInt()];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = getString(buffer);
+		}
+		return values;
+	}
+
+	private static void putNullableInt(DataOutputStream out, Integer value) throws IOException
+	{
+		out.writeBoolean(value != null);
+		if (value != null)
+		{
+			out.writeInt(value);
+		}
+	}
+
+	private static Integer getNullableInt(ByteBuffer buffer)
+	{
+		return buffer.get() != 0 ? buffer.getInt() : null;
+	}
+
+	private static void putString(DataOutputStream out, String value) throws IOException
+	{
+		if (value == null)
+		{
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String getString(ByteBuffer buffer)
+	{
+		int length = buffer.getInt();
+		if (length < 0)
+		{
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,427 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sort orders of the tasks of one task type load, as permutations of positions in the task list.
+ * <p>
+ * Static criteria, the task params, points and completion percent, are built the first time they are requested, by
+ * extracting the sort key of every task once and merge sorting the positions on the primitive keys, then cached.
+ * Live criteria, the completed and tracked dates, are kept as a sorted array of keys packed with their position. Date
+ * changes reported by the param store mark the task, and the next request moves each marked task to its new place
+ * instead of sorting again. Composite orders sort on the ranks of each of their criteria and are rebuilt when a live
+ * criterion they use changed. All sorts are stable, so tasks with equal keys keep their list order.
+ */
+@Slf4j
+public class TaskSortIndex implements TaskParamStore.StateListener
+{
+	public static final String COMPLETION_PERCENT = "completion %";
+	public static final String POINTS = "points";
+	public static final String COMPLETED_DATE = "completed date";
+	public static final String TRACKED_DATE = "tracked date";
+
+	private static final int POSITION_BITS = 20;
+	private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+
+	private final List<TaskFromStruct> tasks;
+	private final TaskParamStore paramStore;
+	private final int[] positionByRow;
+	private final List<String> criteria = new ArrayList<>();
+	private final Map<String, int[]> staticOrders = new HashMap<>();
+	private final Map<String, int[]> staticRanks = new HashMap<>();
+	private final Map<String, LiveOrder> liveOrders = new HashMap<>();
+	private final Map<List<String>, CompositeOrder> compositeOrders = new HashMap<>();
+
+	public TaskSortIndex(List<TaskFromStruct> tasks, TaskParamStore paramStore)
+	{
+		this.tasks = tasks;
+		this.paramStore = paramStore;
+
+		positionByRow = new int[paramStore.size()];
+		for (int position = 0; position < tasks.size(); position++)
+		{
+			positionByRow[tasks.get(position).getRow()] = position;
+		}
+
+		Collections.addAll(criteria, paramStore.getIntParamNames());
+		Collections.addAll(criteria, paramStore.getStringParamNames());
+		// todo: make this less of a special case.
+		if (tasks.stream().anyMatch(task -> task.getCompletionPercent() != null))
+		{
+			criteria.add(COMPLETION_PERCENT);
+		}
+		if (!paramStore.getTaskType().getTierPoints().isEmpty())
+		{
+			criteria.add(POINTS);
+		}
+		criteria.add(COMPLETED_DATE);
+		criteria.add(TRACKED_DATE);
+
+		paramStore.setStateListener(this);
+	}
+
+	/**
+	 * @return the names of the criteria tasks can be sorted on
+	 */
+	public List<String> getCriteria()
+	{
+		return Collections.unmodifiableList(criteria);
+	}
+
+	/**
+	 * @return task list positions in ascending order of a criterion, or null if the criterion is unknown. Must not be
+	 * modified.
+	 */
+	public synchronized int[] get(String criterion)
+	{
+		if (!criteria.contains(criterion))
+		{
+			return null;
+		}
+		if (isLive(criterion))
+		{
+			return getLiveOrder(criterion).getPositions();
+		}
+		return getStaticOrder(criterion);
+	}
+
+	/**
+	 * @param sortCriteria criteria in order of precedence, unknown ones are skipped
+	 * @return task list positions in ascending order of the criteria, or null if none are known. Must not be modified.
+	 */
+	public synchronized int[] get(List<String> sortCriteria)
+	{
+		List<String> knownCriteria = new ArrayList<>(sortCriteria.size());
+		for (String criterion : sortCriteria)
+		{
+			if (criteria.contains(criterion) && !knownCriteria.contains(criterion))
+			{
+				knownCriteria.add(criterion);
+			}
+		}
+		if (knownCriteria.size() <= 1)
+		{
+			return knownCriteria.isEmpty() ? null : get(knownCriteria.get(0));
+		}
+
+		int[][] ranks = new int[knownCriteria.size()][];
+		long[] versions = new long[knownCriteria.size()];
+		for (int i = 0; i < ranks.length; i++)
+		{
+			String criterion = knownCriteria.get(i);
+			if (isLive(criterion))
+			{
+				LiveOrder liveOrder = getLiveOrder(criterion);
+				ranks[i] = liveOrder.getRanks();
+				versions[i] = liveOrder.version;
+			}
+			else
+			{
+				ranks[i] = getStaticRanks(criterion);
+			}
+		}
+
+		CompositeOrder compositeOrder = compositeOrders.get(knownCriteria);
+		if (compositeOrder == null || !Arrays.equals(compositeOrder.versions, versions))
+		{
+			int[] positions = sort(tasks.size(), (a, b) -> {
+				for (int[] rank : ranks)
+				{
+					int compare = Integer.compare(rank[a], rank[b]);
+					if (compare != 0)
+					{
+						return compare;
+					}
+				}
+				return 0;
+			});
+			compositeOrder = new CompositeOrder(positions, versions);
+			compositeOrders.put(knownCriteria, compositeOrder);
+		}
+		return compositeOrder.positions;
+	}
+
+	@Override
+	public synchronized void onStateChanged(int row, int state)
+	{
+		for (LiveOrder liveOrder : liveOrders.values())
+		{
+			if (liveOrder.state == state && row < positionByRow.length)
+			{
+				liveOrder.changedPositions.set(positionByRow[row]);
+			}
+		}
+	}
+
+	private static boolean isLive(String criterion)
+	{
+		return criterion.equals(COMPLETED_DATE) || criterion.equals(TRACKED_DATE);
+	}
+
+	private int[] getStaticOrder(String criterion)
+	{
+		int[] positions = staticOrders.get(criterion);
+		if (positions == null)
+		{
+			long start = System.nanoTime();
+			positions = buildStaticOrder(criterion);
+			staticOrders.put(criterion, positions);
+			log.debug("built sort index {} of {} tasks in {}us", criterion, positions.length, (System.nanoTime() - start) / 1000);
+		}
+		return positions;
+	}
+
+	private int[] getStaticRanks(String criterion)
+	{
+		int[] ranks = staticRanks.get(criterion);
+		if (ranks == null)
+		{
+			int[] positions = getStaticOrder(criterion);
+			PositionComparator comparator = getStaticComparator(criterion);
+			ranks = new int[positions.length];
+			for (int i = 1; i < positions.length; i++)
+			{
+				boolean isTie = comparator.compare(positions[i - 1], positions[i]) == 0;
+				ranks[positions[i]] = isTie ? ranks[positions[i - 1]] : i;
+			}
+			staticRanks.put(criterion, ranks);
+		}
+		return ranks;
+	}
+
+	private int[] buildStaticOrder(String criterion)
+	{
+		return sort(tasks.size(), getStaticComparator(criterion));
+	}
+
+	private PositionComparator getStaticComparator(String criterion)
+	{
+		int size = tasks.size();
+
+		int intOrdinal = paramStore.getIntOrdinal(criterion);
+		if (intOrdinal != -1)
+		{
+			int[] keys = new int[size];
+			for (int i = 0; i < size; i++)
+			{
+				keys[i] = tasks.get(i).getIntParam(intOrdinal);
+			}
+			return (a, b) -> Integer.compare(keys[a], keys[b]);
+		}
+
+		int stringOrdinal = paramStore.getStringOrdinal(criterion);
+		if (stringOrdinal != -1)
+		{
+			String[] keys = new String[size];
+			for (int i = 0; i < size; i++)
+			{
+				String key = tasks.get(i).getStringParam(stringOrdinal);
+				keys[i] = key != null ? key : "";
+			}
+			return (a, b) -> keys[a].compareTo(keys[b]);
+		}
+
+		if (criterion.equals(POINTS))
+		{
+			int[] keys = new int[size];
+			for (int i = 0; i < size; i++)
+			{
+				keys[i] = tasks.get(i).getPoints();
+			}
+			return (a, b) -> Integer.compare(keys[a], keys[b]);
+		}
+
+		// Completion percent
+		float[] keys = new float[size];
+		for (int i = 0; i < size; i++)
+		{
+			Float completionPercent = tasks.get(i).getCompletionPercent();
+			keys[i] = completionPercent != null ? completionPercent : 0;
+		}
+		return (a, b) -> Float.compare(keys[a], keys[b]);
+	}
+
+	private LiveOrder getLiveOrder(String criterion)
+	{
+		LiveOrder liveOrder = liveOrders.get(criterion);
+		if (liveOrder == null)
+		{
+			liveOrder = new LiveOrder(criterion.equals(COMPLETED_DATE) ? TaskParamStore.COMPLETED : TaskParamStore.TRACKED);
+			liveOrders.put(criterion, liveOrder);
+		}
+		liveOrder.applyChanges();
+		return liveOrder;
+	}
+
+	/**
+	 * Order on a task date, as keys packed with their position in ascending order
+	 */
+	private class LiveOrder
+	{
+		private final int state;
+		private final long[] keys;
+		private final long[] packed;
+		private final BitSet changedPositions = new BitSet();
+		private long version = 0;
+		private int[] positions;
+		private int[] ranks;
+
+		private LiveOrder(int state)
+		{
+			this.state = state;
+			int size = tasks.size();
+			keys = new long[size];
+			packed = new long[size];
+			for (int position = 0; position < size; position++)
+			{
+				keys[position] = getKey(position);
+				packed[position] = pack(keys[position], position);
+			}
+			Arrays.sort(packed);
+		}
+
+		private long getKey(int position)
+		{
+			TaskFromStruct task = tasks.get(position);
+			return Math.max(0, state == TaskParamStore.COMPLETED ? task.getCompletedOn() : task.getTrackedOn());
+		}
+
+		private void applyChanges()
+		{
+			if (changedPositions.isEmpty())
+			{
+				return;
+			}
+			for (int position = changedPositions.nextSetBit(0); position >= 0; position = changedPositions.nextSetBit(position + 1))
+			{
+				long key = getKey(position);
+				if (key != keys[position])
+				{
+					move(pack(keys[position], position), pack(key, position));
+					keys[position] = key;
+					version++;
+					positions = null;
+					ranks = null;
+				}
+			}
+			changedPositions.clear();
+		}
+
+		/**
+		 * Move one packed key to the place of its new value, shifting the keys in between
+		 */
+		private void move(long oldPacked, long newPacked)
+		{
+			int from = Arrays.binarySearch(packed, oldPacked);
+			int to = -Arrays.binarySearch(packed, newPacked) - 1;
+			if (to > from)
+			{
+				System.arraycopy(packed, from + 1, packed, from, to - 1 - from);
+				packed[to - 1] = newPacked;
+			}
+			else
+			{
+				System.arraycopy(packed, to, packed, to + 1, from - to);
+				packed[to] = newPacked;
+			}
+		}
+
+		private int[] getPositions()
+		{
+			if (positions == null)
+			{
+				positions = new int[packed.length];
+				for (int i = 0; i < packed.length; i++)
+				{
+					positions[i] = (int) (packed[i] & POSITION_MASK);
+				}
+			}
+			return positions;
+		}
+
+		private int[] getRanks()
+		{
+			if (ranks == null)
+			{
+				ranks = new int[packed.length];
+				for (int i = 1; i < packed.length; i++)
+				{
+					int position = (int) (packed[i] & POSITION_MASK);
+					int previousPosition = (int) (packed[i - 1] & POSITION_MASK);
+					ranks[position] = keys[position] == keys[previousPosition] ? ranks[previousPosition] : i;
+				}
+			}
+			return ranks;
+		}
+	}
+
+	private static long pack(long key, int position)
+	{
+		return (key << POSITION_BITS) | position;
+	}
+
+	private static class CompositeOrder
+	{
+		private final int[] positions;
+		private final long[] versions;
+
+		private CompositeOrder(int[] positions, long[] versions)
+		{
+			this.positions = positions;
+			this.versions = versions;
+		}
+	}
+
+	interface PositionComparator
+	{
+		int compare(int a, int b);
+	}
+
+	/**
+	 * Stable bottom-up merge sort of the positions 0 to size - 1
+	 */
+	static int[] sort(int size, PositionComparator comparator)
+	{
+		int[] positions = new int[size];
+		for (int i = 0; i < size; i++)
+		{
+			positions[i] = i;
+		}
+		int[] buffer = new int[size];
+		for (int width = 1; width < size; width *= 2)
+		{
+			for (int low = 0; low < size - width; low += 2 * width)
+			{
+				int mid = low + width;
+				int high = Math.min(low + 2 * width, size);
+				// Already in order, nothing to merge
+				if (comparator.compare(positions[mid - 1], positions[mid]) <= 0)
+				{
+					continue;
+				}
+				System.arraycopy(positions, low, buffer, low, high - low);
+				int left = low;
+				int right = mid;
+				for (int i = low; i < high; i++)
+				{
+					if (right >= high || (left < mid && comparator.compare(buffer[left], buffer[right]) <= 0))
+					{
+						positions[i] = buffer[left++];
+					}
+					else
+					{
+						positions[i] = buffer[right++];
+					}
+				}
+			}
+		}
+		return positions;
+	}
+}
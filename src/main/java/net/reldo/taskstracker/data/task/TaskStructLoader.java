@@ -0,0 +1,125 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.TasksTrackerConfig;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+
+/**
+ * Loads task struct data on the client thread with a single job per load. Each tick the job resolves queued tasks
+ * until the configured time budget is spent, then yields until the next tick.
+ */
+@Singleton
+@Slf4j
+public class TaskStructLoader
+{
+	@Inject private Client client;
+	@Inject private ClientThread clientThread;
+	@Inject private TasksTrackerConfig config;
+
+	/**
+	 * Start a load. Tasks may be added from any thread until {@link StructLoad#finish()} is called.
+	 */
+	public StructLoad begin(String label)
+	{
+		StructLoad load = new StructLoad(label, TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.structLoadBudgetMs())));
+		clientThread.invoke(load::runTick);
+		return load;
+	}
+
+	public class StructLoad
+	{
+		private final String label;
+		private final long budgetNanos;
+		private final Queue<TaskFromStruct> pending = new ConcurrentLinkedQueue<>();
+		private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+		private volatile boolean finished = false;
+		private volatile boolean cancelled = false;
+		private boolean success = true;
+		private int loadedCount = 0;
+		private int tickCount = 0;
+		private long totalNanos = 0;
+
+		private StructLoad(String label, long budgetNanos)
+		{
+			this.label = label;
+			this.budgetNanos = budgetNanos;
+		}
+
+		public void add(TaskFromStruct task)
+		{
+			pending.add(task);
+		}
+
+		/**
+		 * Mark that no more tasks will be added
+		 *
+		 * @return a future resolving to whether every task loaded, once the queue is drained
+		 */
+		public CompletableFuture<Boolean> finish()
+		{
+			finished = true;
+			return future;
+		}
+
+		/**
+		 * Stop the load at its next tick, dropping queued tasks. The future resolves to false.
+		 */
+		public void cancel()
+		{
+			cancelled = true;
+		}
+
+		/**
+		 * @return true once the load is complete, so the client thread stops re-running the job
+		 */
+		private boolean runTick()
+		{
+			// Read before draining, so a task added just before finish() is never missed
+			boolean wasFinished = finished;
+			if (cancelled)
+			{
+				pending.clear();
+				log.debug("cancelled struct data load of {} after {} tasks", label, loadedCount);
+				future.complete(false);
+				return true;
+			}
+			long start = System.nanoTime();
+			tickCount++;
+			try
+			{
+				TaskFromStruct task;
+				while (!cancelled && System.nanoTime() - start < budgetNanos && (task = pending.poll()) != null)
+				{
+					success &= task.loadStructData(client);
+					loadedCount++;
+				}
+			}
+			catch (Exception ex)
+			{
+				log.error("Error loading struct data for {}", label, ex);
+				future.completeExceptionally(ex);
+				return true;
+			}
+			finally
+			{
+				totalNanos += System.nanoTime() - start;
+			}
+
+			if (!wasFinished || !pending.isEmpty())
+			{
+				return false;
+			}
+			log.debug("loaded struct data for {} tasks of {} in {} ticks, {}ms on client thread",
+				loadedCount, label, tickCount, TimeUnit.NANOSECONDS.toMillis(totalNanos));
+			future.complete(success);
+			return true;
+		}
+	}
+}
@@ -50,7 +50,7 @@ public class TaskType
 					BufferedImage spriteImage = spriteManager.getSprite(spriteId, 0);
 					tierSprites.put(tierId, spriteImage);
 				});
-				if (_taskTypeDefinition.getIntEnumMap().containsKey("tierPoints"))
+				if (tierPoints.isEmpty() && _taskTypeDefinition.getIntEnumMap().containsKey("tierPoints"))
 				{
 					int enumId = _taskTypeDefinition.getIntEnumMap().get("tierPoints");
 					EnumComposition enumComposition = client.getEnum(enumId);
@@ -125,11 +125,21 @@ public class TaskType
 		return _taskTypeDefinition.getName();
 	}
 
+	public boolean isEnabled()
+	{
+		return _taskTypeDefinition.isEnabled();
+	}
+
 	public ArrayList<FilterConfig> getFilters()
 	{
 		return _taskTypeDefinition.getFilters();
 	}
 
+	public void setFilters(ArrayList<FilterConfig> filters)
+	{
+		_taskTypeDefinition.setFilters(filters);
+	}
+
 	public int[] getOtherVarps()
 	{
 		return _taskTypeDefinition.getOtherVarps();
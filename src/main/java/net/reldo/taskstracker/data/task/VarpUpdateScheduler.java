@@ -0,0 +1,83 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.HashSet;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.TasksTrackerConfig;
+import net.runelite.api.Constants;
+
+/**
+ * Coalesces changed task varps into batches flushed on game ticks. A change after an idle period is flushed on the
+ * next tick. While varps keep changing on consecutive ticks the flush is held back until a quiet tick, but never
+ * longer than the configured latency target. All methods are called on the client thread.
+ */
+@Singleton
+@Slf4j
+public class VarpUpdateScheduler
+{
+	@Inject private TasksTrackerConfig config;
+
+	private final Set<Integer> pendingVarpIds = new HashSet<>();
+	private final Set<Integer> batch = new HashSet<>();
+	private int tick = 0;
+	private int firstPendingTick = 0;
+	private int lastFlushTick = Integer.MIN_VALUE / 2;
+	private boolean changedSinceLastTick = false;
+
+	public void add(int varpId)
+	{
+		if (pendingVarpIds.isEmpty())
+		{
+			firstPendingTick = tick;
+		}
+		pendingVarpIds.add(varpId);
+		changedSinceLastTick = true;
+	}
+
+	/**
+	 * Drop pending varps, e.g. when a forced update covers every varp
+	 */
+	public void clear()
+	{
+		pendingVarpIds.clear();
+		changedSinceLastTick = false;
+	}
+
+	/**
+	 * Advance to the next game tick
+	 *
+	 * @return the batch of varp ids to flush on this tick, or an empty set. The set is reused by the next call.
+	 */
+	public Set<Integer> onGameTick()
+	{
+		tick++;
+		batch.clear();
+		if (pendingVarpIds.isEmpty())
+		{
+			return batch;
+		}
+
+		int latencyTicks = getLatencyTicks();
+		boolean isIdle = tick - lastFlushTick > latencyTicks;
+		boolean isQuiet = !changedSinceLastTick;
+		boolean isDue = tick - firstPendingTick >= latencyTicks;
+		changedSinceLastTick = false;
+		if (!isIdle && !isQuiet && !isDue)
+		{
+			return batch;
+		}
+
+		log.debug("flushing {} varps after {} ticks (idle={} quiet={} due={})", pendingVarpIds.size(), tick - firstPendingTick, isIdle, isQuiet, isDue);
+		batch.addAll(pendingVarpIds);
+		pendingVarpIds.clear();
+		lastFlushTick = tick;
+		return batch;
+	}
+
+	private int getLatencyTicks()
+	{
+		return Math.max(1, (config.varpUpdateLatencyMs() + Constants.GAME_TICK_LENGTH - 1) / Constants.GAME_TICK_LENGTH);
+	}
+}
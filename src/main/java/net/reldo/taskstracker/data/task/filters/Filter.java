@@ -1,8 +1,15 @@
 package net.reldo.taskstracker.data.task.filters;
 
+import java.util.BitSet;
+import net.reldo.taskstracker.data.task.TaskBitmapIndex;
 import net.reldo.taskstracker.data.task.TaskFromStruct;
 
 public abstract class Filter
 {
     public abstract boolean meetsCriteria(TaskFromStruct task);
+
+    /**
+     * Clear the bits of tasks that do not meet the criteria
+     */
+    public abstract void apply(BitSet tasks, TaskBitmapIndex index);
 }
@@ -0,0 +1,167 @@
+package net.reldo.taskstracker.data.task.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.TasksTrackerPlugin;
+import net.reldo.taskstracker.config.ConfigValues.CompletedFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.IgnoredFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.TrackedFilterValues;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterType;
+import net.reldo.taskstracker.data.task.TaskBitmapIndex;
+import net.reldo.taskstracker.data.task.TaskParamStore;
+import net.reldo.taskstracker.data.task.TaskSearchIndex;
+import net.reldo.taskstracker.data.task.TaskType;
+import net.runelite.client.config.ConfigManager;
+
+/**
+ * The param filters of one task type load, shared by every task of the type. Each filter config has its config key
+ * and param ordinal resolved once, and keeps the filter built from its last seen config value together with the task
+ * rows it passes, so a config change only rebuilds the filters whose selection changed.
+ */
+@Slf4j
+public class FilterRegistry
+{
+	@Getter
+	private final TaskType taskType;
+	@Getter
+	private final TaskParamStore paramStore;
+	@Getter
+	@Nullable
+	private final TaskBitmapIndex bitmapIndex;
+	@Getter
+	private final TaskSearchIndex searchIndex;
+	private final Entry[] entries;
+
+	public FilterRegistry(TaskType taskType, TaskParamStore paramStore, @Nullable TaskBitmapIndex bitmapIndex, TaskSearchIndex searchIndex)
+	{
+		this.taskType = taskType;
+		this.paramStore = paramStore;
+		this.bitmapIndex = bitmapIndex;
+		this.searchIndex = searchIndex;
+
+		List<Entry> entries = new ArrayList<>();
+		for (FilterConfig filterConfig : taskType.getFilters())
+		{
+			if (filterConfig.getFilterType().equals(FilterType.BUTTON_FILTER) || filterConfig.getFilterType().equals(FilterType.DROPDOWN_FILTER))
+			{
+				entries.add(new Entry(filterConfig, taskType.getFilterConfigPrefix() + filterConfig.getConfigKey(), paramStore.getIntOrdinal(filterConfig.getValueName())));
+			}
+		}
+		this.entries = entries.toArray(new Entry[0]);
+	}
+
+	/**
+	 * Compile the filter state from the current config
+	 */
+	public synchronized FilterState compile(ConfigManager configManager, CompletedFilterValues completedFilter, TrackedFilterValues trackedFilter, IgnoredFilterValues ignoredFilter)
+	{
+		List<Filter> filters = new ArrayList<>(entries.length);
+		BitSet paramMatches = bitmapIndex != null ? bitmapIndex.all() : null;
+		for (Entry entry : entries)
+		{
+			String configValue = configManager.getConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, entry.configKey);
+			if (!entry.isBuilt || !Objects.equals(configValue, entry.configValue))
+			{
+				entry.build(configValue, bitmapIndex);
+			}
+			if (entry.filter != null)
+			{
+				filters.add(entry.filter);
+				if (paramMatches != null)
+				{
+					paramMatches.and(entry.matches);
+				}
+			}
+		}
+
+		return new FilterState(filters.toArray(new Filter[0]), paramMatches, completedFilter, trackedFilter, ignoredFilter);
+	}
+
+	private static class Entry
+	{
+		private final FilterConfig filterConfig;
+		private final String configKey;
+		private final int paramOrdinal;
+
+		private boolean isBuilt = false;
+		private String configValue;
+		@Nullable
+		private Filter filter;
+		@Nullable
+		private BitSet matches;
+
+		private Entry(FilterConfig filterConfig, String configKey, int paramOrdinal)
+		{
+			this.filterConfig = filterConfig;
+			this.configKey = configKey;
+			this.paramOrdinal = paramOrdinal;
+		}
+
+		private void build(String configValue, @Nullable TaskBitmapIndex bitmapIndex)
+		{
+			this.isBuilt = true;
+			this.configValue = configValue;
+			this.filter = null;
+			this.matches = null;
+
+			boolean isEmptyFilterSelection = configValue == null || configValue.isEmpty() || configValue.equals("-1");
+			if (filterConfig.getFilterType().equals(FilterType.BUTTON_FILTER))
+			{
+				// No selected buttons, or a param the task type lacks, matches no tasks
+				filter = new ParamButtonFilter(paramOrdinal, isEmptyFilterSelection || paramOrdinal == -1 ? new int[0] : parseButtonValues(configValue));
+			}
+			else if (!isEmptyFilterSelection && paramOrdinal != -1)
+			{
+				try
+				{
+					filter = new ParamDropdownFilter(paramOrdinal, Integer.parseInt(configValue));
+				}
+				catch (NumberFormatException ex)
+				{
+					log.warn("compile error parsing config value for {}", configValue);
+				}
+			}
+
+			if (filter != null && bitmapIndex != null)
+			{
+				matches = bitmapIndex.all();
+				filter.apply(matches, bitmapIndex);
+			}
+		}
+	}
+
+	/**
+	 * Parse a button filter config value of the form "f-1-f,f-2-f" into sorted int values
+	 */
+	private static int[] parseButtonValues(String configValue)
+	{
+		String[] entries = configValue.split(",");
+		int[] values = new int[entries.length];
+		int count = 0;
+		for (String entry : entries)
+		{
+			if (entry.length() > 4 && entry.startsWith("f-") && entry.endsWith("-f"))
+			{
+				try
+				{
+					int value = Integer.parseInt(entry.substring(2, entry.length() - 2));
+					values[count++] = value;
+				}
+				catch (NumberFormatException ex)
+				{
+					// Non-numeric buttons can never match an int param
+				}
+			}
+		}
+		values = Arrays.copyOf(values, count);
+		Arrays.sort(values);
+		return values;
+	}
+}
@@ -1,11 +1,30 @@
 package net.reldo.taskstracker.data.task.filters;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.swing.SwingUtilities;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import net.reldo.taskstracker.TasksTrackerConfig;
 import net.reldo.taskstracker.data.jsondatastore.FilterDataClient;
 import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
+import net.reldo.taskstracker.data.task.TaskBitmapIndex;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+import net.reldo.taskstracker.data.task.TaskParamStore;
+import net.reldo.taskstracker.data.task.TaskSearchIndex;
+import net.reldo.taskstracker.data.task.TaskSearchResult;
+import net.reldo.taskstracker.data.task.TaskType;
+import net.runelite.client.config.ConfigManager;
 
 @Singleton
 @Slf4j
@@ -13,10 +32,41 @@ public class FilterService
 {
     @Inject
     private FilterDataClient filterDataClient;
+    @Inject
+    private ConfigManager configManager;
+    @Inject
+    private TasksTrackerConfig config;
+    // Shared with the rest of the client, so only used to time the debounce
+    @Inject
+    private ScheduledExecutorService scheduler;
+
+    private static final long SEARCH_DEBOUNCE_MS = 120;
+    private static final long SEARCH_THREAD_KEEP_ALIVE_S = 30;
+
+    // Searches run one at a time, off the data store threads. The thread stops when idle, so it is never shut down.
+    private final ThreadPoolExecutor searchExecutor = createSearchExecutor();
 
     // Filter config cache
     private HashMap<String, FilterConfig> _filterConfigs = new HashMap<>();
 
+    private volatile FilterRegistry filterRegistry;
+    @Getter
+    private volatile FilterState filterState = FilterState.ALL;
+
+    // Lowercased search text, or null, and the rows of the current task type matching it
+    @Getter
+    private volatile String searchText;
+    private volatile TaskSearchResult searchResult;
+    // Incremented by every search request, so superseded searches stop and never apply
+    private final AtomicInteger searchGeneration = new AtomicInteger();
+    private ScheduledFuture<?> pendingSearch;
+
+    // Visible rows, valid for the filter state, search matches and param store state version they were computed from
+    private BitSet visibleTasks;
+    private FilterState visibleTasksFilterState;
+    private BitSet visibleTasksSearchMatches;
+    private int visibleTasksStateVersion;
+
     public FilterConfig getGlobalFilterByKey(String filterKey)
     {
         // Instantiate filterConfigs if not already
@@ -40,8 +90,215 @@ public class FilterService
         return null;
     }
 
+    public CompletableFuture<HashMap<String, FilterConfig>> loadFilterConfigsAsync()
+    {
+        return filterDataClient.getFilterConfigsAsync().thenApply(filterConfigs -> {
+            _filterConfigs = filterConfigs;
+            return filterConfigs;
+        });
+    }
+
     public void clearFilterConfigs()
     {
         this._filterConfigs.clear();
     }
+
+    /**
+     * Create the filter registry of a newly loaded task type and compile its filter state
+     */
+    public synchronized void setTaskType(TaskType taskType, TaskParamStore paramStore, TaskBitmapIndex bitmapIndex, TaskSearchIndex searchIndex)
+    {
+        filterRegistry = new FilterRegistry(taskType, paramStore, bitmapIndex, searchIndex);
+        searchResult = searchText != null ? searchIndex.search(searchText, config.fuzzySearch(), null, () -> false) : null;
+        compileFilterState();
+    }
+
+    /**
+     * Set the text tasks must contain in their name, description or wiki notes, approximately if fuzzy search is
+     * enabled. The search is debounced and evaluated on the search thread, narrowing the previous matches when the
+     * new text contains the previous text. A newer call cancels a search still pending or running. The matches are
+     * applied on the EDT, followed by onApplied.
+     *
+     * @param text      search text, or null or empty to show every task
+     * @param onApplied run on the EDT once the matches are applied, to refresh the task list
+     */
+    public synchronized void setSearchTextAsync(String text, Runnable onApplied)
+    {
+        String newSearchText = text == null || text.isEmpty() ? null : text.toLowerCase();
+        int generation = searchGeneration.incrementAndGet();
+        if (pendingSearch != null)
+        {
+            pendingSearch.cancel(false);
+        }
+
+        FilterRegistry registry = filterRegistry;
+        if (newSearchText == null || registry == null)
+        {
+            SwingUtilities.invokeLater(() -> applySearch(generation, registry, newSearchText, null, onApplied));
+            return;
+        }
+
+        // Captured now, so the narrowing base is the applied search the user typed on from
+        TaskSearchResult previousResult = searchResult;
+        boolean fuzzy = config.fuzzySearch();
+        pendingSearch = scheduler.schedule(() -> searchExecutor.execute(() ->
+        {
+            if (searchGeneration.get() != generation)
+            {
+                return;
+            }
+            long start = System.nanoTime();
+            TaskSearchResult result = registry.getSearchIndex().search(newSearchText, fuzzy, previousResult,
+                () -> searchGeneration.get() != generation);
+            if (result == null)
+            {
+                return;
+            }
+            log.debug("searched \"{}\" in {}us, {} matches", newSearchText, (System.nanoTime() - start) / 1000, result.getMatches().cardinality());
+            SwingUtilities.invokeLater(() -> applySearch(generation, registry, newSearchText, result, onApplied));
+        }), SEARCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void applySearch(int generation, FilterRegistry registry, String newSearchText, TaskSearchResult result, Runnable onApplied)
+    {
+        synchronized (this)
+        {
+            if (searchGeneration.get() != generation)
+            {
+                return;
+            }
+            if (result != null && filterRegistry != registry)
+            {
+                // A task type loaded meanwhile, search its index instead
+                setSearchTextAsync(newSearchText, onApplied);
+                return;
+            }
+            searchText = newSearchText;
+            searchResult = result;
+        }
+        onApplied.run();
+    }
+
+    /**
+     * Recompile the filter state after a config change
+     */
+    public synchronized void compileFilterState()
+    {
+        if (filterRegistry == null)
+        {
+            return;
+        }
+        filterState = filterRegistry.compile(configManager, config.completedFilter(), config.trackedFilter(), config.ignoredFilter());
+    }
+
+    /**
+     * @return whether a task passes the current filters
+     */
+    public boolean isVisible(TaskFromStruct task)
+    {
+        FilterRegistry registry = filterRegistry;
+        if (registry != null && task.getParamStore() == registry.getParamStore())
+        {
+            BitSet visible = getVisibleTasks();
+            if (visible != null)
+            {
+                return visible.get(task.getRow());
+            }
+        }
+        return meetsSearchText(task) && filterState.meetsCriteria(task);
+    }
+
+    /**
+     * @return the search relevance of a task, higher first, or 0 without a search
+     */
+    public int getSearchScore(TaskFromStruct task)
+    {
+        FilterRegistry registry = filterRegistry;
+        TaskSearchResult result = searchResult;
+        if (result == null || registry == null || task.getParamStore() != registry.getParamStore())
+        {
+            return 0;
+        }
+        return result.getScores()[task.getRow()];
+    }
+
+    private boolean meetsSearchText(TaskFromStruct task)
+    {
+        String text = searchText;
+        return text == null ||
+            (task.getName() != null && task.getName().toLowerCase().contains(text)) ||
+            (task.getDescription() != null && task.getDescription().toLowerCase().contains(text));
+    }
+
+    /**
+     * Rows of the current task type passing every filter, from the precomputed param matches, the search matches and
+     * the live state bitsets of the param store. Cached until the filters, search text or task state change.
+     *
+     * @return the visible rows, or null without a bitmap index. Must not be modified.
+     */
+    public synchronized BitSet getVisibleTasks()
+    {
+        FilterState state = filterState;
+        if (state.getParamMatches() == null)
+        {
+            return null;
+        }
+        TaskParamStore paramStore = filterRegistry.getParamStore();
+        int stateVersion = paramStore.getStateVersion();
+        BitSet searchMatches = searchResult != null ? searchResult.getMatches() : null;
+        if (visibleTasks != null && visibleTasksFilterState == state && visibleTasksSearchMatches == searchMatches && visibleTasksStateVersion == stateVersion)
+        {
+            return visibleTasks;
+        }
+
+        BitSet visible = (BitSet) state.getParamMatches().clone();
+        if (searchMatches != null)
+        {
+            visible.and(searchMatches);
+        }
+        switch (state.getCompletedFilter())
+        {
+            case COMPLETE:
+                paramStore.andState(visible, TaskParamStore.COMPLETED, true);
+                break;
+            case INCOMPLETE:
+                paramStore.andState(visible, TaskParamStore.COMPLETED, false);
+                break;
+        }
+        switch (state.getIgnoredFilter())
+        {
+            case IGNORED:
+                paramStore.andState(visible, TaskParamStore.IGNORED, true);
+                break;
+            case NOT_IGNORED:
+                paramStore.andState(visible, TaskParamStore.IGNORED, false);
+                break;
+        }
+        switch (state.getTrackedFilter())
+        {
+            case TRACKED:
+                paramStore.andState(visible, TaskParamStore.TRACKED, true);
+                break;
+            case UNTRACKED:
+                paramStore.andState(visible, TaskParamStore.TRACKED, false);
+                break;
+        }
+
+        visibleTasks = visible;
+        visibleTasksFilterState = state;
+        visibleTasksSearchMatches = searchMatches;
+        visibleTasksStateVersion = stateVersion;
+        return visible;
+    }
+
+    private static ThreadPoolExecutor createSearchExecutor()
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, SEARCH_THREAD_KEEP_ALIVE_S, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+                .setNameFormat("tasks-tracker-search-%d")
+                .setDaemon(true)
+                .build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 }
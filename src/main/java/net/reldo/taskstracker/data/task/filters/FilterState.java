@@ -0,0 +1,86 @@
+package net.reldo.taskstracker.data.task.filters;
+
+import java.util.BitSet;
+import javax.annotation.Nullable;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.reldo.taskstracker.config.ConfigValues.CompletedFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.IgnoredFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.TrackedFilterValues;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+
+/**
+ * Immutable filter configuration for the current task type, compiled by {@link FilterService} when config changes,
+ * so tasks are evaluated without config lookups. When the task type has a bitmap index the param filters are also
+ * precomputed into the set of task rows that pass them.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FilterState
+{
+	public static final FilterState ALL = new FilterState(new Filter[0], null,
+		CompletedFilterValues.COMPLETE_AND_INCOMPLETE, TrackedFilterValues.TRACKED_AND_UNTRACKED, IgnoredFilterValues.IGNORED_AND_NOT_IGNORED);
+
+	private final Filter[] paramFilters;
+	/**
+	 * Rows passing every param filter, or null without a bitmap index. Must not be modified.
+	 */
+	@Nullable
+	private final BitSet paramMatches;
+	private final CompletedFilterValues completedFilter;
+	private final TrackedFilterValues trackedFilter;
+	private final IgnoredFilterValues ignoredFilter;
+
+	public boolean meetsCriteria(TaskFromStruct task)
+	{
+		for (Filter filter : paramFilters)
+		{
+			if (!filter.meetsCriteria(task))
+			{
+				return false;
+			}
+		}
+
+		switch (completedFilter)
+		{
+			case COMPLETE:
+				if (!task.isCompleted())
+				{
+					return false;
+				}
+				break;
+			case INCOMPLETE:
+				if (task.isCompleted())
+				{
+					return false;
+				}
+				break;
+		}
+
+		switch (ignoredFilter)
+		{
+			case IGNORED:
+				if (!task.isIgnored())
+				{
+					return false;
+				}
+				break;
+			case NOT_IGNORED:
+				if (task.isIgnored())
+				{
+					return false;
+				}
+				break;
+		}
+
+		switch (trackedFilter)
+		{
+			case TRACKED:
+				return task.isTracked();
+			case UNTRACKED:
+				return !task.isTracked();
+			default:
+				return true;
+		}
+	}
+}
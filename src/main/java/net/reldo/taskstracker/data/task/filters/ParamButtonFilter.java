@@ -1,34 +1,47 @@
 package net.reldo.taskstracker.data.task.filters;
 
-import lombok.extern.slf4j.Slf4j;
-import net.reldo.taskstracker.TasksTrackerPlugin;
+import java.util.Arrays;
+import java.util.BitSet;
+import net.reldo.taskstracker.data.task.TaskBitmapIndex;
 import net.reldo.taskstracker.data.task.TaskFromStruct;
-import net.runelite.client.config.ConfigManager;
 
-@Slf4j
+/**
+ * Passes tasks whose param value is one of the selected buttons
+ */
 public class ParamButtonFilter extends Filter
 {
-	private final String paramName;
-	private final String filterConfigKey;
-	private final ConfigManager configManager;
+	private final int paramOrdinal;
+	private final int[] selectedValues;
 
-	public ParamButtonFilter(ConfigManager configManager, String paramName, String filterConfigKey)
+	/**
+	 * @param paramOrdinal   ordinal of the int param in the task param store
+	 * @param selectedValues selected param values, sorted
+	 */
+	public ParamButtonFilter(int paramOrdinal, int[] selectedValues)
 	{
-		this.configManager = configManager;
-		this.paramName = paramName;
-		this.filterConfigKey = filterConfigKey;
+		this.paramOrdinal = paramOrdinal;
+		this.selectedValues = selectedValues;
 	}
 
 	@Override
 	public boolean meetsCriteria(TaskFromStruct task)
 	{
-		String configValue = configManager.getConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, filterConfigKey);
-		boolean isEmptyFilterSelection = configValue == null || configValue.isEmpty() || configValue.equals("-1");
-		if (isEmptyFilterSelection)
+		// A param the task type lacks matches no tasks
+		return paramOrdinal != -1 && Arrays.binarySearch(selectedValues, task.getIntParam(paramOrdinal)) >= 0;
+	}
+
+	@Override
+	public void apply(BitSet tasks, TaskBitmapIndex index)
+	{
+		BitSet matches = new BitSet(index.getSize());
+		for (int value : selectedValues)
 		{
-			return false;
+			BitSet valueTasks = index.get(paramOrdinal, value);
+			if (valueTasks != null)
+			{
+				matches.or(valueTasks);
+			}
 		}
-
-		return configValue.contains("f-" + task.getIntParam(paramName) + "-f");
+		tasks.and(matches);
 	}
 }
@@ -1,46 +1,44 @@
 package net.reldo.taskstracker.data.task.filters;
 
-import lombok.extern.slf4j.Slf4j;
-import net.reldo.taskstracker.TasksTrackerPlugin;
+import java.util.BitSet;
+import net.reldo.taskstracker.data.task.TaskBitmapIndex;
 import net.reldo.taskstracker.data.task.TaskFromStruct;
-import net.runelite.client.config.ConfigManager;
 
-@Slf4j
+/**
+ * Passes tasks whose param value equals the selected dropdown value
+ */
 public class ParamDropdownFilter extends Filter
 {
-	private final String paramName;
-	private final String filterConfigKey;
-	private final ConfigManager configManager;
+	private final int paramOrdinal;
+	private final int selectedValue;
 
-	public ParamDropdownFilter(ConfigManager configManager, String paramName, String filterConfigKey)
+	/**
+	 * @param paramOrdinal  ordinal of the int param in the task param store
+	 * @param selectedValue selected param value
+	 */
+	public ParamDropdownFilter(int paramOrdinal, int selectedValue)
 	{
-		this.configManager = configManager;
-		this.paramName = paramName;
-		this.filterConfigKey = filterConfigKey;
+		this.paramOrdinal = paramOrdinal;
+		this.selectedValue = selectedValue;
 	}
 
 	@Override
 	public boolean meetsCriteria(TaskFromStruct task)
 	{
-		String configValue = configManager.getConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, filterConfigKey);
-		boolean isEmptyFilterSelection = configValue == null || configValue.isEmpty() || configValue.equals("-1");
-		if (isEmptyFilterSelection)
+		return task.getIntParam(paramOrdinal) == selectedValue;
+	}
+
+	@Override
+	public void apply(BitSet tasks, TaskBitmapIndex index)
+	{
+		BitSet valueTasks = index.get(paramOrdinal, selectedValue);
+		if (valueTasks != null)
 		{
-			return true;
+			tasks.and(valueTasks);
 		}
-		if (task.getIntParam(paramName) != null)
+		else
 		{
-			try
-			{
-				Integer parsedConfigValue = Integer.parseInt(configValue);
-				return parsedConfigValue.equals(task.getIntParam(paramName));
-			}
-			catch (Exception ex)
-			{
-				log.warn("meetsCriteria error parsing config value for  {}", configValue);
-				return true;
-			}
+			tasks.clear();
 		}
-		return true;
 	}
 }
@@ -5,12 +5,14 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
@@ -45,6 +47,7 @@ public class LoggedInPanel extends JPanel
 {
 	public TaskListPanel taskListPanel;
 	private JComboBox<ComboItem<TaskType>> taskTypeDropdown;
+	private boolean updatingTaskTypeDropdown = false;
 
 	private final TaskService taskService;
 	private final TasksTrackerPlugin plugin;
@@ -82,22 +85,11 @@ public class LoggedInPanel extends JPanel
 
 	public void redraw()
 	{
-		// taskTypeDropdown may become de-synced after profile change
-		String selectedTaskTypeJsonName = taskTypeDropdown.getItemAt(taskTypeDropdown.getSelectedIndex()).getValue().getTaskJsonName();
-		if(!selectedTaskTypeJsonName.equals(config.taskTypeJsonName()))
+		if (taskService.getCurrentTaskType() == null)
 		{
-			log.debug("Task type dropdown de-synced, attempting to find current task type");
-			for(int i = 0; i < taskTypeDropdown.getItemCount(); i++)
-			{
-				ComboItem<TaskType> item = taskTypeDropdown.getItemAt(i);
-				if(item.getValue().getTaskJsonName().equals(config.taskTypeJsonName()))
-				{
-					log.debug("Current task type found, setting selected task type");
-					taskTypeDropdown.setSelectedIndex(i);
-					break;
-				}
-			}
+			return;
 		}
+		updateTaskTypeDropdown();
 		subFilterPanel.redraw();
 		sortPanel.redraw();
 		updateCollapseButtonText();
@@ -115,6 +107,11 @@ public class LoggedInPanel extends JPanel
 		taskListPanel.refresh(task);
 	}
 
+	public void refreshTasks(Collection<TaskFromStruct> tasks)
+	{
+		taskListPanel.refreshTasks(tasks);
+	}
+
 	private void createPanel()
 	{
 		setLayout(new BorderLayout());
@@ -322,18 +319,13 @@ public class LoggedInPanel extends JPanel
 		northPanel.setLayout(layout);
 		northPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
 
-		ArrayList<ComboItem<TaskType>> taskTypeItems = new ArrayList<>();
-		taskService.getTaskTypesByJsonName().forEach((taskTypeJsonName, taskType) -> taskTypeItems.add(new ComboItem(taskType, taskType.getName())));
-		ComboItem<TaskType>[] comboItemsArray = taskTypeItems.toArray(new ComboItem[0]);
-		taskTypeDropdown = new JComboBox<>(comboItemsArray);
+		// Task types are loaded asynchronously, the dropdown is populated on redraw
+		taskTypeDropdown = new JComboBox<>();
 		taskTypeDropdown.setAlignmentX(LEFT_ALIGNMENT);
-
-        TaskType currentTaskType = taskService.getCurrentTaskType();
-        ComboItem<TaskType> currentTaskTypeComboItem = Arrays.stream(comboItemsArray)
-                .filter(item -> item.getValue().equals(currentTaskType))
-                .findFirst().orElseGet(() -> comboItemsArray[0]);
-        taskTypeDropdown.setSelectedItem(currentTaskTypeComboItem);
         taskTypeDropdown.addActionListener(e -> {
+            if (updatingTaskTypeDropdown || taskTypeDropdown.getSelectedIndex() < 0) {
+                return;
+            }
             TaskType taskType = taskTypeDropdown.getItemAt(taskTypeDropdown.getSelectedIndex()).getValue();
             taskService.setTaskType(taskType).thenAccept(wasTaskTypeChanged -> {
                 if (wasTaskTypeChanged) {
@@ -391,6 +383,38 @@ public class LoggedInPanel extends JPanel
 		return northPanel;
 	}
 
+	private void updateTaskTypeDropdown()
+	{
+		TaskType currentTaskType = taskService.getCurrentTaskType();
+		updatingTaskTypeDropdown = true;
+		try
+		{
+			// taskTypeDropdown may become de-synced after profile change or hold stale task types after a reload
+			for (int i = 0; i < taskTypeDropdown.getItemCount(); i++)
+			{
+				if (taskTypeDropdown.getItemAt(i).getValue() == currentTaskType)
+				{
+					taskTypeDropdown.setSelectedIndex(i);
+					return;
+				}
+			}
+
+			log.debug("Task type dropdown de-synced, repopulating task types");
+			ArrayList<ComboItem<TaskType>> taskTypeItems = new ArrayList<>();
+			taskService.getTaskTypesByJsonName().forEach((taskTypeJsonName, taskType) -> taskTypeItems.add(new ComboItem<>(taskType, taskType.getName())));
+			ComboItem<TaskType>[] comboItemsArray = taskTypeItems.toArray(new ComboItem[0]);
+			taskTypeDropdown.setModel(new DefaultComboBoxModel<>(comboItemsArray));
+			Arrays.stream(comboItemsArray)
+				.filter(item -> item.getValue() == currentTaskType)
+				.findFirst()
+				.ifPresent(taskTypeDropdown::setSelectedItem);
+		}
+		finally
+		{
+			updatingTaskTypeDropdown = false;
+		}
+	}
+
 	private JPanel getTitleAndButtonPanel()
 	{
 		titlePanel.setLayout(new BorderLayout());
@@ -503,8 +527,7 @@ public class LoggedInPanel extends JPanel
 
 		SearchBox textSearch = new SearchBox();
 		textSearch.addTextChangedListener(() -> {
-			plugin.taskTextFilter = textSearch.getText().toLowerCase();
-			plugin.refresh();
+			plugin.getFilterService().setSearchTextAsync(textSearch.getText(), plugin::applySearch);
 		});
 
 		filtersPanel.add(textSearch);
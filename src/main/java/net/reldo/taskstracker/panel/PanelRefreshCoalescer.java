@@ -0,0 +1,95 @@
+package net.reldo.taskstracker.panel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+
+/**
+ * Gathers panel refresh requests from any thread into a set of changed tasks, or a full refresh, and applies them in
+ * one pass on the EDT at most once per frame.
+ */
+public class PanelRefreshCoalescer
+{
+	private static final int FRAME_MS = 16;
+
+	private final Runnable refreshAll;
+	private final Consumer<Collection<TaskFromStruct>> refreshTasks;
+	private final Timer timer;
+
+	private final Set<TaskFromStruct> dirtyTasks = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean isAllDirty = false;
+	private boolean isScheduled = false;
+
+	/**
+	 * @param refreshAll   refreshes every task, run on the EDT
+	 * @param refreshTasks refreshes some tasks, run on the EDT
+	 */
+	public PanelRefreshCoalescer(Runnable refreshAll, Consumer<Collection<TaskFromStruct>> refreshTasks)
+	{
+		this.refreshAll = refreshAll;
+		this.refreshTasks = refreshTasks;
+		timer = new Timer(FRAME_MS, e -> flush());
+		timer.setRepeats(false);
+	}
+
+	/**
+	 * Request a refresh of every task
+	 */
+	public synchronized void requestAll()
+	{
+		isAllDirty = true;
+		dirtyTasks.clear();
+		schedule();
+	}
+
+	/**
+	 * Request a refresh of changed tasks
+	 */
+	public synchronized void request(Collection<TaskFromStruct> tasks)
+	{
+		if (!isAllDirty)
+		{
+			dirtyTasks.addAll(tasks);
+		}
+		schedule();
+	}
+
+	private void schedule()
+	{
+		if (!isScheduled)
+		{
+			isScheduled = true;
+			SwingUtilities.invokeLater(timer::restart);
+		}
+	}
+
+	private void flush()
+	{
+		boolean isAll;
+		List<TaskFromStruct> tasks;
+		synchronized (this)
+		{
+			isAll = isAllDirty;
+			tasks = new ArrayList<>(dirtyTasks);
+			isAllDirty = false;
+			dirtyTasks.clear();
+			isScheduled = false;
+		}
+
+		if (isAll)
+		{
+			refreshAll.run();
+		}
+		else if (!tasks.isEmpty())
+		{
+			refreshTasks.accept(tasks);
+		}
+	}
+}
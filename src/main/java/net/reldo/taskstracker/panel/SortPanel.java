@@ -1,17 +1,22 @@
 package net.reldo.taskstracker.panel;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.swing.BoxLayout;
 import javax.swing.Icon;
 import javax.swing.JComboBox;
+import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import lombok.extern.slf4j.Slf4j;
 import net.reldo.taskstracker.TasksTrackerPlugin;
 import net.reldo.taskstracker.config.ConfigValues;
 import net.reldo.taskstracker.data.task.TaskService;
+import net.reldo.taskstracker.data.task.TaskSortIndex;
 import net.reldo.taskstracker.panel.components.FixedWidthPanel;
 import net.reldo.taskstracker.panel.components.MultiToggleButton;
 import net.runelite.client.config.ConfigManager;
@@ -27,6 +32,10 @@ public class SortPanel extends FixedWidthPanel
     private final TaskListPanel taskListPanel;
     private final ConfigManager configManager;
     private JComboBox<String> sortDropdown;
+    // One dropdown per "then by" key, the last always set to None so another key can be added
+    private final List<JComboBox<String>> thenSortDropdowns = new ArrayList<>();
+    private final JPanel thenSortRows = new JPanel();
+    private String[] thenCriteriaArray;
     private MultiToggleButton directionButton;
 
     public SortPanel(TasksTrackerPlugin plugin, TaskService taskService, TaskListPanel taskListPanel)
@@ -36,19 +45,28 @@ public class SortPanel extends FixedWidthPanel
         this.taskService = taskService;
         this.taskListPanel = taskListPanel;
 
-        setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         setAlignmentX(LEFT_ALIGNMENT);
+
+        thenSortRows.setLayout(new BoxLayout(thenSortRows, BoxLayout.Y_AXIS));
+        thenSortRows.setAlignmentX(LEFT_ALIGNMENT);
+        thenSortRows.setOpaque(false);
     }
 
     public void redraw()
     {
         removeAll();
 
-        List<String> criteriaList = taskService.getSortedIndexes().keySet().stream()
+        List<String> criteriaList = Optional.ofNullable(taskService.getSortIndex())
+                .map(TaskSortIndex::getCriteria)
+                .orElse(Collections.emptyList())
+                .stream()
                 .sorted()
                 .map((str) -> str.substring(0, 1).toUpperCase() + str.substring(1))
                 .collect(Collectors.toList());
+        List<String> thenCriteriaList = new ArrayList<>(criteriaList);
         criteriaList.add(0,"Default");
+        thenCriteriaList.add(0, "None");
 
         String[] criteriaArray = criteriaList.toArray(new String[0]);
         sortDropdown = new JComboBox<>(criteriaArray);
@@ -76,15 +94,77 @@ public class SortPanel extends FixedWidthPanel
             });
         });
 
-        add(sortDropdown);
-        add(directionButton);
+        thenCriteriaArray = thenCriteriaList.toArray(new String[0]);
+        thenSortDropdowns.clear();
+        thenSortRows.removeAll();
+        addThenSortDropdown();
+
+        JPanel sortRow = new JPanel();
+        sortRow.setLayout(new BoxLayout(sortRow, BoxLayout.X_AXIS));
+        sortRow.setAlignmentX(LEFT_ALIGNMENT);
+        sortRow.setOpaque(false);
+        sortRow.add(sortDropdown);
+        sortRow.add(directionButton);
+
+        add(sortRow);
+        add(thenSortRows);
         updateConfig();
     }
 
+    private void addThenSortDropdown()
+    {
+        JComboBox<String> thenSortDropdown = new JComboBox<>(thenCriteriaArray);
+        thenSortDropdown.setAlignmentX(LEFT_ALIGNMENT);
+        thenSortDropdown.setSelectedIndex(0);
+        thenSortDropdown.setToolTipText("Then sort by");
+        thenSortDropdown.addActionListener(e -> {
+            updateThenSortDropdowns(thenSortDropdown);
+            updateConfig();
+            SwingUtilities.invokeLater(() -> {
+                taskListPanel.redraw();
+                taskListPanel.refresh(null);
+            });
+        });
+        thenSortDropdown.setFocusable(false);
+        thenSortDropdowns.add(thenSortDropdown);
+        thenSortRows.add(thenSortDropdown);
+    }
+
+    /**
+     * Add a dropdown for another key once the last one is set, and remove a dropdown other than the last once it is
+     * set to None
+     */
+    private void updateThenSortDropdowns(JComboBox<String> changedDropdown)
+    {
+        boolean isLast = thenSortDropdowns.get(thenSortDropdowns.size() - 1) == changedDropdown;
+        boolean isNone = changedDropdown.getSelectedIndex() == 0;
+        if (isNone && !isLast)
+        {
+            thenSortDropdowns.remove(changedDropdown);
+            thenSortRows.remove(changedDropdown);
+        }
+        else if (!isNone && isLast && thenSortDropdowns.size() < thenCriteriaArray.length - 1)
+        {
+            addThenSortDropdown();
+        }
+        thenSortRows.revalidate();
+        thenSortRows.repaint();
+    }
+
     protected void updateConfig()
     {
         log.debug("updateConfig {}, {}, {}", TasksTrackerPlugin.CONFIG_GROUP_NAME, "sortCriteria", sortDropdown.getItemAt(sortDropdown.getSelectedIndex()).toLowerCase());
         configManager.setConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, "sortCriteria", sortDropdown.getItemAt(sortDropdown.getSelectedIndex()).toLowerCase());
+        String thenSortCriteria = thenSortDropdowns.stream()
+                .filter(dropdown -> dropdown.getSelectedIndex() > 0)
+                .map(dropdown -> dropdown.getItemAt(dropdown.getSelectedIndex()).toLowerCase())
+                .collect(Collectors.joining(","));
+        if (thenSortCriteria.isEmpty())
+        {
+            thenSortCriteria = "none";
+        }
+        log.debug("updateConfig {}, {}, {}", TasksTrackerPlugin.CONFIG_GROUP_NAME, "thenSortCriteria", thenSortCriteria);
+        configManager.setConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, "thenSortCriteria", thenSortCriteria);
 
         ConfigValues.SortDirections configValue = ConfigValues.SortDirections.values()[directionButton.getState()];
         log.debug("updateConfig {}, {}, {}", TasksTrackerPlugin.CONFIG_GROUP_NAME, "sortDirection", configValue);
@@ -1,30 +1,49 @@
 package net.reldo.taskstracker.panel;
 
+import java.awt.BorderLayout;
 import java.awt.Component;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
-import javax.swing.BoxLayout;
+import java.util.Map;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JScrollPane;
+import javax.swing.JToolTip;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.ToolTipManager;
 import javax.swing.border.EmptyBorder;
 import lombok.extern.slf4j.Slf4j;
 import net.reldo.taskstracker.TasksTrackerPlugin;
 import net.reldo.taskstracker.config.ConfigValues;
-import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinitionSkill;
 import net.reldo.taskstracker.data.task.TaskFromStruct;
 import net.reldo.taskstracker.data.task.TaskService;
+import net.reldo.taskstracker.data.task.TaskSet;
 import net.reldo.taskstracker.panel.components.FixedWidthPanel;
-import net.runelite.api.Skill;
+import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.FontManager;
+import net.runelite.client.ui.PluginPanel;
 
+/**
+ * The task list, shown as a JList of the visible tasks rendered by a single {@link TaskPanel}. Only rows on screen are
+ * painted, the track and ignore buttons, tooltips and the wiki menu are hit tested against the renderer laid out at
+ * the row's bounds.
+ */
 @Slf4j
 public class TaskListPanel extends JScrollPane
 {
 	public TasksTrackerPlugin plugin;
-	public final ArrayList<TaskPanel> taskPanels = new ArrayList<>();
 	private final TaskListListPanel taskList;
 	private final TaskService taskService;
 	private final JLabel emptyTasks = new JLabel();
@@ -48,36 +67,93 @@ public class TaskListPanel extends JScrollPane
 	public void redraw()
 	{
 		taskList.redraw();
+		applyOrder(true);
+	}
+
+	/**
+	 * List the tasks by search relevance while searching with relevance ordering enabled, otherwise in the selected
+	 * sort order. Does nothing while the sort order is unchanged, unless the search changed.
+	 */
+	public void applyOrder(boolean isSearchChanged)
+	{
+		// Sorted within the snapshot the list shows, so positions always match its tasks
+		List<String> sortCriteria = new ArrayList<>();
+		sortCriteria.add(plugin.getConfig().sortCriteria());
+		// Any number of "then by" keys, comma separated
+		sortCriteria.addAll(Arrays.asList(plugin.getConfig().thenSortCriteria().split(",")));
+		int[] sortOrder = taskList.taskSet.getSortOrder(sortCriteria);
+		boolean isSearchOrdered = plugin.getConfig().orderSearchByRelevance() && plugin.getFilterService().getSearchText() != null;
+		if (sortOrder == taskList.sortOrder && !(isSearchChanged && (isSearchOrdered || taskList.isSearchOrdered)))
+		{
+			return;
+		}
+
+		List<TaskFromStruct> tasks = taskList.taskSet.getTasks();
+		boolean isDescending = plugin.getConfig().sortDirection().equals(ConfigValues.SortDirections.DESCENDING);
+		List<TaskFromStruct> orderedTasks = new ArrayList<>(tasks.size());
+		for (int i = 0; i < tasks.size(); i++)
+		{
+			int index = isDescending ? tasks.size() - (i + 1) : i;
+			orderedTasks.add(tasks.get(sortOrder != null ? sortOrder[index] : index));
+		}
+		if (isSearchOrdered)
+		{
+			// Stable, so equally relevant tasks keep the selected sort order
+			orderedTasks.sort(Comparator.comparingInt((TaskFromStruct task) -> -plugin.getFilterService().getSearchScore(task)));
+		}
+		taskList.setOrder(orderedTasks, sortOrder, isSearchOrdered);
 	}
 
 	public void refresh(TaskFromStruct task)
 	{
+		if (task != null)
+		{
+			refreshTasks(Collections.singletonList(task));
+			return;
+		}
+
 		if(SwingUtilities.isEventDispatchThread())
 		{
-			emptyTasks.setVisible(false);
+			// Orders on task dates move as tasks are completed and tracked
+			applyOrder(false);
+			// Filtering is a bit lookup per task, the list only renders the rows on screen
+			taskList.updateVisibleTasks();
+		}
+		else
+		{
+			log.error("Task list panel refresh failed - not event dispatch thread.");
+		}
+	}
 
-			if (task != null)
+	/**
+	 * Refresh changed tasks, repainting their rows unless one of them was shown or hidden
+	 */
+	public void refreshTasks(Collection<TaskFromStruct> tasks)
+	{
+		if(SwingUtilities.isEventDispatchThread())
+		{
+			int[] sortOrder = taskList.sortOrder;
+			applyOrder(false);
+			if (sortOrder != taskList.sortOrder)
 			{
-				Optional<TaskPanel> panel = taskPanels.stream()
-					.filter(tp -> tp.task.getName().equalsIgnoreCase(task.getName()))
-					.findFirst();
-				panel.ifPresent(TaskPanel::refresh);
+				// Reordered, which already updated the visible tasks
+				return;
 			}
-			else
+
+			JList<TaskFromStruct> list = taskList.list;
+			for (TaskFromStruct task : tasks)
 			{
-				for (TaskPanel taskPanel : taskPanels)
+				Integer row = taskList.rowByTask.get(task);
+				if ((row != null) != plugin.getFilterService().isVisible(task))
 				{
-					taskPanel.refresh();
+					taskList.updateVisibleTasks();
+					return;
+				}
+				Rectangle bounds = row != null ? list.getCellBounds(row, row) : null;
+				if (bounds != null)
+				{
+					list.repaint(bounds);
 				}
-			}
-
-			Optional<TaskPanel> visibleTaskPanel = taskPanels.stream()
-					.filter(TaskPanel::isVisible)
-					.findFirst();
-
-			if (visibleTaskPanel.isEmpty())
-			{
-				emptyTasks.setVisible(true);
 			}
 		}
 		else
@@ -86,38 +162,24 @@ public class TaskListPanel extends JScrollPane
 		}
 	}
 
-	public void refreshTaskPanelsWithSkill(Skill skill)
-	{
-		// Refresh all task panels for tasks with 'skill' or
-		// 'SKILLS' (any skill) or 'TOTAL LEVEL' as a requirement.
-		taskPanels.stream()
-				.filter(tp ->
-				{
-					List<TaskDefinitionSkill> skillsList = tp.task.getTaskDefinition().getSkills();
-					if(skillsList == null || skillsList.isEmpty())
-					{
-						return false;
-					}
-
-					return skillsList.stream()
-						.map(TaskDefinitionSkill::getSkill)
-						.anyMatch(s ->  s.equalsIgnoreCase(skill.getName()) ||
-                                        s.equalsIgnoreCase("SKILLS") ||
-                                        s.equalsIgnoreCase("TOTAL LEVEL")
-						);
-				})
-				.forEach(TaskPanel::refresh);
-	}
-
 	private class TaskListListPanel extends FixedWidthPanel
 	{
 		private final TasksTrackerPlugin plugin;
+		private final JList<TaskFromStruct> list;
+		private final TaskListUI listUI = new TaskListUI(PluginPanel.PANEL_WIDTH - 20);
+		private final TaskPanel renderer;
+		private TaskSet taskSet = TaskSet.EMPTY;
+		private List<TaskFromStruct> orderedTasks = new ArrayList<>();
+		// Row of each visible task
+		private final Map<TaskFromStruct, Integer> rowByTask = new IdentityHashMap<>();
+		private int[] sortOrder;
+		private boolean isSearchOrdered = false;
 
 		public TaskListListPanel(TasksTrackerPlugin plugin)
 		{
 			this.plugin = plugin;
 
-			setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+			setLayout(new BorderLayout());
 			setBorder(new EmptyBorder(0, 10, 10, 10));
 			setAlignmentX(Component.LEFT_ALIGNMENT);
 
@@ -126,46 +188,151 @@ public class TaskListPanel extends JScrollPane
 			emptyTasks.setFont(FontManager.getRunescapeSmallFont());
 			emptyTasks.setHorizontalAlignment(JLabel.CENTER);
 			emptyTasks.setVerticalAlignment(JLabel.CENTER);
-			add(emptyTasks);
+			add(emptyTasks, BorderLayout.NORTH);
 			emptyTasks.setVisible(false);
-		}
 
-		public void redraw()
-		{
-			log.debug("TaskListPanel.redraw");
-			if(SwingUtilities.isEventDispatchThread())
+			renderer = new TaskPanel(plugin);
+			list = new JList<TaskFromStruct>()
 			{
-				removeAll();
-				taskPanels.clear();
-				add(emptyTasks);
-				emptyTasks.setVisible(false);
-
-				log.debug("TaskListPanel creating panels");
-				List<TaskFromStruct> tasks = taskService.getTasks();
-				if (tasks == null || tasks.isEmpty())
+				@Override
+				public String getToolTipText(MouseEvent mouseEvent)
 				{
-					emptyTasks.setVisible(true);
-					return;
+					TaskPanel rowPanel = layoutRendererAt(mouseEvent.getPoint());
+					if (rowPanel == null)
+					{
+						return null;
+					}
+					int index = locationToIndex(mouseEvent.getPoint());
+					Rectangle bounds = getCellBounds(index, index);
+					return rowPanel.getToolTipTextAt(mouseEvent.getX() - bounds.x, mouseEvent.getY() - bounds.y);
+				}
+
+				@Override
+				public JToolTip createToolTip()
+				{
+					JToolTip toolTip = renderer.createToolTip();
+					toolTip.setComponent(this);
+					return toolTip;
+				}
+			};
+			list.setUI(listUI);
+			list.setCellRenderer((ListCellRenderer<TaskFromStruct>) (jList, task, index, isSelected, cellHasFocus) -> {
+				renderer.setTask(task);
+				return renderer;
+			});
+			list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+			list.setFocusable(false);
+			list.setBackground(ColorScheme.DARK_GRAY_COLOR);
+			ToolTipManager.sharedInstance().registerComponent(list);
+			list.addMouseListener(new MouseAdapter()
+			{
+				@Override
+				public void mousePressed(MouseEvent e)
+				{
+					showPopup(e);
+				}
+
+				@Override
+				public void mouseReleased(MouseEvent e)
+				{
+					showPopup(e);
 				}
 
-				for (int indexPosition = 0; indexPosition < tasks.size(); indexPosition++)
+				@Override
+				public void mouseClicked(MouseEvent e)
 				{
-					int adjustedIndexPosition = indexPosition;
-					if (plugin.getConfig().sortDirection().equals(ConfigValues.SortDirections.DESCENDING))
-						adjustedIndexPosition = tasks.size() - (adjustedIndexPosition + 1);
-					TaskPanel taskPanel = new TaskPanel(plugin, tasks.get(taskService.getSortedTaskIndex(plugin.getConfig().sortCriteria(), adjustedIndexPosition)));
-					add(taskPanel);
-					taskPanels.add(taskPanel);
+					if (!SwingUtilities.isLeftMouseButton(e))
+					{
+						return;
+					}
+					TaskPanel rowPanel = layoutRendererAt(e.getPoint());
+					if (rowPanel != null)
+					{
+						int index = list.locationToIndex(e.getPoint());
+						Rectangle bounds = list.getCellBounds(index, index);
+						rowPanel.click(e.getX() - bounds.x, e.getY() - bounds.y);
+					}
 				}
+			});
+			add(list, BorderLayout.CENTER);
+		}
+
+		private void showPopup(MouseEvent e)
+		{
+			if (!e.isPopupTrigger())
+			{
+				return;
+			}
+			TaskPanel rowPanel = layoutRendererAt(e.getPoint());
+			if (rowPanel != null)
+			{
+				rowPanel.createWikiPopupMenu().show(list, e.getX(), e.getY());
+			}
+		}
 
-				log.debug("TaskListPanel validate and repaint");
-				validate();
-				repaint();
+		/**
+		 * @return the renderer showing the task of the row at a point, laid out at the row's size, or null if no row
+		 * is at the point
+		 */
+		private TaskPanel layoutRendererAt(Point point)
+		{
+			int index = list.locationToIndex(point);
+			Rectangle bounds = index != -1 ? list.getCellBounds(index, index) : null;
+			if (bounds == null || !bounds.contains(point))
+			{
+				return null;
+			}
+			renderer.setTask(list.getModel().getElementAt(index));
+			renderer.layoutAt(bounds.width, bounds.height);
+			return renderer;
+		}
+
+		public void redraw()
+		{
+			log.debug("TaskListPanel.redraw");
+			if(SwingUtilities.isEventDispatchThread())
+			{
+				taskSet = taskService.getTaskSet();
+				orderedTasks = taskSet.getTasks();
+				sortOrder = null;
+				isSearchOrdered = false;
+				listUI.clearRowHeights();
+				renderer.clearRenderedTasks();
+				updateVisibleTasks();
 			}
 			else
 			{
 				log.error("Task list panel redraw failed - not event dispatch thread.");
 			}
 		}
+
+		public void setOrder(List<TaskFromStruct> orderedTasks, int[] sortOrder, boolean isSearchOrdered)
+		{
+			this.orderedTasks = orderedTasks;
+			this.sortOrder = sortOrder;
+			this.isSearchOrdered = isSearchOrdered;
+			updateVisibleTasks();
+		}
+
+		/**
+		 * Show the tasks passing the filters, in order
+		 */
+		public void updateVisibleTasks()
+		{
+			List<TaskFromStruct> visibleTasks = new ArrayList<>();
+			rowByTask.clear();
+			for (TaskFromStruct task : orderedTasks)
+			{
+				if (plugin.getFilterService().isVisible(task))
+				{
+					rowByTask.put(task, visibleTasks.size());
+					visibleTasks.add(task);
+				}
+			}
+			list.setListData(visibleTasks.toArray(new TaskFromStruct[0]));
+			emptyTasks.setVisible(visibleTasks.isEmpty());
+			revalidate();
+			repaint();
+		}
 	}
 }
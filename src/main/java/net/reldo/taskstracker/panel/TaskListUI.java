@@ -0,0 +1,68 @@
+package net.reldo.taskstracker.panel;
+
+import java.awt.Component;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListModel;
+import javax.swing.plaf.basic.BasicListUI;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+
+/**
+ * List UI that remembers the height of each task row per list width. Re-filtering or re-ordering the task list lays it
+ * out from the remembered heights, and only rows on screen are rendered when painting.
+ */
+public class TaskListUI extends BasicListUI
+{
+	private final int defaultWidth;
+	private final Map<TaskFromStruct, Integer> rowHeights = new IdentityHashMap<>();
+	private int rowHeightsWidth = -1;
+
+	/**
+	 * @param defaultWidth width to measure rows at before the list is laid out
+	 */
+	public TaskListUI(int defaultWidth)
+	{
+		this.defaultWidth = defaultWidth;
+	}
+
+	/**
+	 * Forget remembered row heights, e.g. when another task type is loaded
+	 */
+	public void clearRowHeights()
+	{
+		rowHeights.clear();
+	}
+
+	@Override
+	protected void updateLayoutState()
+	{
+		int width = list.getWidth() > 0 ? list.getWidth() : defaultWidth;
+		if (width != rowHeightsWidth)
+		{
+			rowHeights.clear();
+			rowHeightsWidth = width;
+		}
+
+		ListModel<Object> model = list.getModel();
+		ListCellRenderer<? super Object> renderer = list.getCellRenderer();
+		cellHeight = -1;
+		cellWidth = width;
+		cellHeights = new int[model.getSize()];
+		for (int i = 0; i < cellHeights.length; i++)
+		{
+			TaskFromStruct task = (TaskFromStruct) model.getElementAt(i);
+			Integer height = rowHeights.get(task);
+			if (height == null)
+			{
+				Component component = renderer.getListCellRendererComponent(list, task, i, false, false);
+				rendererPane.add(component);
+				component.setSize(width, component.getPreferredSize().height);
+				component.validate();
+				height = component.getPreferredSize().height;
+				rowHeights.put(task, height);
+			}
+			cellHeights[i] = height;
+		}
+	}
+}
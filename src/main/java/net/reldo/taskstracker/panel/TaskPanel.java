@@ -2,9 +2,10 @@ package net.reldo.taskstracker.panel;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
 import java.awt.Desktop;
 import java.awt.Dimension;
-import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
@@ -13,10 +14,11 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
 import javax.swing.JLabel;
@@ -25,21 +27,13 @@ import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JToggleButton;
 import javax.swing.JToolTip;
-import javax.swing.ToolTipManager;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import lombok.extern.slf4j.Slf4j;
 import net.reldo.taskstracker.HtmlUtil;
-import net.reldo.taskstracker.TasksTrackerConfig;
 import net.reldo.taskstracker.TasksTrackerPlugin;
-import net.reldo.taskstracker.config.ConfigValues.CompletedFilterValues;
-import net.reldo.taskstracker.config.ConfigValues.IgnoredFilterValues;
-import net.reldo.taskstracker.config.ConfigValues.TrackedFilterValues;
-import net.reldo.taskstracker.data.jsondatastore.types.FilterType;
-import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinitionSkill;
 import net.reldo.taskstracker.data.task.TaskFromStruct;
-import net.reldo.taskstracker.data.task.filters.Filter;
-import net.reldo.taskstracker.data.task.filters.ParamButtonFilter;
-import net.reldo.taskstracker.data.task.filters.ParamDropdownFilter;
+import net.reldo.taskstracker.data.task.TaskSkillIndex;
 import net.runelite.api.Constants;
 import net.runelite.api.Skill;
 import net.runelite.client.game.SkillIconManager;
@@ -51,7 +45,14 @@ import net.runelite.client.util.SwingUtil;
 @Slf4j
 public class TaskPanel extends JPanel
 {
-	public final TaskFromStruct task;
+	private static final DateTimeFormatter COMPLETED_DATE_FORMAT = DateTimeFormatter.ofPattern("MM-dd-yyyy hh:mma").withZone(ZoneId.systemDefault());
+	// Image tags of the skill icons by skill ordinal, shared by every panel
+	private static final String[] SKILL_ICON_TAGS = new String[Skill.values().length];
+
+	public TaskFromStruct task;
+
+	// Text and icons of tasks shown by this panel, see RenderedTask
+	private final Map<TaskFromStruct, RenderedTask> renderedTasks = new IdentityHashMap<>();
 
 	private final JLabel tierIcon = new JLabel();
 	private final JPanel container = new JPanel(new BorderLayout());
@@ -62,47 +63,112 @@ public class TaskPanel extends JPanel
 	private final JToggleButton toggleTrack = new JToggleButton();
 	private final JToggleButton toggleIgnore = new JToggleButton();
 
-	protected final ArrayList<Filter> filters = new ArrayList<>();
-
 	protected TasksTrackerPlugin plugin;
 
-	public TaskPanel(TasksTrackerPlugin plugin, TaskFromStruct task)
+	/**
+	 * Create a panel to render tasks with, see {@link #setTask}
+	 */
+	public TaskPanel(TasksTrackerPlugin plugin)
 	{
 		super(new BorderLayout());
 		this.plugin = plugin;
-		this.task = task;
 		createPanel();
-		setComponentPopupMenu(getPopupMenu());
-		ToolTipManager.sharedInstance().registerComponent(this);
-		refresh();
+	}
 
-		task.getTaskType().getFilters().forEach((filterConfig) -> {
-			String paramName = filterConfig.getValueName();
-			if (filterConfig.getFilterType().equals(FilterType.BUTTON_FILTER))
-			{
-				Filter filter = new ParamButtonFilter(plugin.getConfigManager(), paramName, task.getTaskType().getTaskJsonName() + "." + filterConfig.getConfigKey());
-				filters.add(filter);
-			}
-			else if (filterConfig.getFilterType().equals(FilterType.DROPDOWN_FILTER))
+	/**
+	 * Show another task, without changing visibility
+	 */
+	public void setTask(TaskFromStruct task)
+	{
+		this.task = task;
+		update();
+	}
+
+	/**
+	 * Forget the rendered text of shown tasks, e.g. when another task type is loaded
+	 */
+	public void clearRenderedTasks()
+	{
+		renderedTasks.clear();
+	}
+
+	/**
+	 * Lay the panel out at a size, so its children can be hit tested and painted
+	 */
+	public void layoutAt(int width, int height)
+	{
+		setBounds(0, 0, width, height);
+		layoutTree(this);
+	}
+
+	private static void layoutTree(Container container)
+	{
+		container.doLayout();
+		for (Component child : container.getComponents())
+		{
+			if (child instanceof Container)
 			{
-				Filter filter = new ParamDropdownFilter(plugin.getConfigManager(), paramName, task.getTaskType().getTaskJsonName() + "." + filterConfig.getConfigKey());
-				filters.add(filter);
+				layoutTree((Container) child);
 			}
-		});
+		}
+	}
+
+	/**
+	 * Handle a click at a point of the laid out panel
+	 *
+	 * @return whether the click hit a button
+	 */
+	public boolean click(int x, int y)
+	{
+		Component component = SwingUtilities.getDeepestComponentAt(this, x, y);
+		if (component == toggleTrack)
+		{
+			toggleTracked();
+			return true;
+		}
+		if (component == toggleIgnore)
+		{
+			toggleIgnored();
+			return true;
+		}
+		return false;
 	}
 
-	public JPopupMenu getPopupMenu()
+	/**
+	 * @return the tooltip at a point of the laid out panel
+	 */
+	public String getToolTipTextAt(int x, int y)
 	{
-		return null;
+		if (SwingUtilities.getDeepestComponentAt(this, x, y) == toggleIgnore)
+		{
+			return task.isIgnored() ? "Unignore" : "Ignore";
+		}
+		return getTaskTooltip();
 	}
 
+	/**
+	 * @return the tooltip of the task, rebuilt only when its completion or the player's levels of its required skills
+	 * changed since it was last built
+	 */
 	public String getTaskTooltip()
+	{
+		RenderedTask renderedTask = getRenderedTask();
+		if (renderedTask.tooltip == null || renderedTask.tooltipCompletedOn != task.getCompletedOn() || !isTooltipLevelsCurrent(renderedTask))
+		{
+			renderedTask.tooltipCompletedOn = task.getCompletedOn();
+			renderedTask.tooltipLevels = getRequiredPlayerLevels();
+			renderedTask.tooltip = buildTaskTooltip(renderedTask.tooltipLevels);
+		}
+		return renderedTask.tooltip;
+	}
+
+	private String buildTaskTooltip(int[] playerLevels)
 	{
 		StringBuilder tooltipText = new StringBuilder();
 		tooltipText.append(HtmlUtil.wrapWithBold(task.getName())).append(HtmlUtil.HTML_LINE_BREAK);
 		tooltipText.append(task.getDescription()).append(HtmlUtil.HTML_LINE_BREAK);
 
-		String skillSection = getSkillSectionHtml();
+		String skillSection = getSkillSectionHtml(playerLevels);
 		if (skillSection != null)
 		{
 			tooltipText.append(skillSection).append(HtmlUtil.HTML_LINE_BREAK);
@@ -117,9 +183,7 @@ public class TaskPanel extends JPanel
 		if (task.isCompleted())
 		{
 			tooltipText.append(HtmlUtil.HTML_LINE_BREAK);
-			String datePattern = "MM-dd-yyyy hh:mma";
-			SimpleDateFormat simpleDateFormat = new SimpleDateFormat(datePattern);
-			tooltipText.append("✔ ").append(simpleDateFormat.format(new Date(task.getCompletedOn())));
+			tooltipText.append("✔ ").append(COMPLETED_DATE_FORMAT.format(Instant.ofEpochMilli(task.getCompletedOn())));
 		}
 
 		Float completionPercent = task.getTaskDefinition().getCompletionPercent();
@@ -133,41 +197,60 @@ public class TaskPanel extends JPanel
 		);
 	}
 
-	public Color getTaskBackgroundColor()
+	/**
+	 * @return the player's levels of the skills required by the task, -1 while skills are unknown
+	 */
+	private int[] getRequiredPlayerLevels()
 	{
-		if (plugin.playerSkills == null)
+		int[] skillOrdinals = getRequiredSkillOrdinals();
+		int[] playerLevels = new int[skillOrdinals.length];
+		for (int i = 0; i < skillOrdinals.length; i++)
 		{
-			return ColorScheme.DARKER_GRAY_COLOR;
+			playerLevels[i] = plugin.playerSkills != null ? plugin.playerSkills[skillOrdinals[i]] : -1;
 		}
+		return playerLevels;
+	}
 
-		if (task.isCompleted())
+	private boolean isTooltipLevelsCurrent(RenderedTask renderedTask)
+	{
+		int[] skillOrdinals = getRequiredSkillOrdinals();
+		if (skillOrdinals.length != renderedTask.tooltipLevels.length)
 		{
-			return Colors.COMPLETED_BACKGROUND_COLOR;
+			return false;
+		}
+		for (int i = 0; i < skillOrdinals.length; i++)
+		{
+			int playerLevel = plugin.playerSkills != null ? plugin.playerSkills[skillOrdinals[i]] : -1;
+			if (playerLevel != renderedTask.tooltipLevels[i])
+			{
+				return false;
+			}
 		}
+		return true;
+	}
 
-		if (task.getTaskDefinition().getSkills() == null || task.getTaskDefinition().getSkills().size() == 0)
+	private int[] getRequiredSkillOrdinals()
+	{
+		TaskSkillIndex skillIndex = plugin.getTaskService().getSkillIndex();
+		return skillIndex != null ? skillIndex.getSkillOrdinals(task) : new int[0];
+	}
+
+	public Color getTaskBackgroundColor()
+	{
+		if (plugin.playerSkills == null)
 		{
 			return ColorScheme.DARKER_GRAY_COLOR;
 		}
 
-		for (TaskDefinitionSkill requiredSkill : task.getTaskDefinition().getSkills())
+		if (task.isCompleted())
 		{
-			Skill skill;
-			String requiredSkillName = requiredSkill.getSkill().toUpperCase();
-			try
-			{
-				skill = Skill.valueOf(requiredSkillName);
-			}
-			catch (IllegalArgumentException ex)
-			{
-				log.error("invalid skill name " + requiredSkillName);
-				continue;
-			}
+			return Colors.COMPLETED_BACKGROUND_COLOR;
+		}
 
-			if (plugin.playerSkills[skill.ordinal()] < requiredSkill.getLevel())
-			{
-				return Colors.UNQUALIFIED_BACKGROUND_COLOR;
-			}
+		TaskSkillIndex skillIndex = plugin.getTaskService().getSkillIndex();
+		if (skillIndex != null && !skillIndex.isQualified(task))
+		{
+			return Colors.UNQUALIFIED_BACKGROUND_COLOR;
 		}
 
 		return ColorScheme.DARKER_GRAY_COLOR;
@@ -198,11 +281,7 @@ public class TaskPanel extends JPanel
 		toggleTrack.setIcon(Icons.PLUS_ICON);
 		toggleTrack.setSelectedIcon(Icons.MINUS_ICON);
 		toggleTrack.setBorder(new EmptyBorder(5, 0, 5, 0));
-		toggleTrack.addActionListener(e -> {
-			task.setTracked(toggleTrack.isSelected());
-			plugin.pluginPanel.taskListPanel.refresh(task);
-			plugin.saveCurrentTaskTypeData();
-		});
+		toggleTrack.addActionListener(e -> toggleTracked());
 		SwingUtil.removeButtonDecorations(toggleTrack);
 
 		toggleIgnore.setPreferredSize(new Dimension(8, 8));
@@ -210,11 +289,7 @@ public class TaskPanel extends JPanel
 		toggleIgnore.setSelectedIcon(Icons.EYE_ICON);
 		SwingUtil.addModalTooltip(toggleIgnore, "Unignore", "Ignore");
 		toggleIgnore.setBorder(new EmptyBorder(5, 0, 5, 0));
-		toggleIgnore.addActionListener(e -> {
-			task.setIgnored(!task.isIgnored());
-			plugin.pluginPanel.taskListPanel.refresh(task);
-			plugin.saveCurrentTaskTypeData();
-		});
+		toggleIgnore.addActionListener(e -> toggleIgnored());
 		SwingUtil.removeButtonDecorations(toggleIgnore);
 
 		buttons.add(toggleTrack);
@@ -225,44 +300,21 @@ public class TaskPanel extends JPanel
 		container.add(body, BorderLayout.CENTER);
 		container.add(buttons, BorderLayout.EAST);
 
-		BufferedImage tierSprite = task.getTaskType().getTierSprites().get(task.getTier());
-		if (tierSprite != null)
-		{
-			tierIcon.setMinimumSize(new Dimension(Constants.ITEM_SPRITE_WIDTH, Constants.ITEM_SPRITE_HEIGHT));
-			tierIcon.setIcon(new ImageIcon(tierSprite));
-			tierIcon.setBorder(new EmptyBorder(0, 0, 0, 5));
-		}
-		else
-		{
-			tierIcon.setBorder(new EmptyBorder(0, 0, 0, 0));
-		}
-
 		add(container, BorderLayout.NORTH);
-
-		addMouseListener(new MouseAdapter()
-		{
-			@Override
-			public void mouseReleased(MouseEvent e)
-			{
-				if (e.isPopupTrigger())
-				{
-					JPopupMenu menu = createWikiPopupMenu();
-					menu.show(e.getComponent(), e.getX(), e.getY());
-				}
-			}
-		});
 	}
 
 	public JPopupMenu createWikiPopupMenu()
 	{
 		JPopupMenu popupMenu = new JPopupMenu();
 		JMenuItem openWikiItem = new JMenuItem("Wiki");
-		openWikiItem.addActionListener(e -> openRuneScapeWiki());
+		// The task is captured, as a renderer panel shows other tasks by the time the item is chosen
+		TaskFromStruct wikiTask = task;
+		openWikiItem.addActionListener(e -> openRuneScapeWiki(wikiTask));
 		popupMenu.add(openWikiItem);
 		return popupMenu;
 	}
 
-	private void openRuneScapeWiki()
+	private void openRuneScapeWiki(TaskFromStruct task)
 	{
 		String wikiUrl = String.format("https://oldschool.runescape.wiki/%s", URLEncoder.encode(task.getName().replace(' ', '_'), StandardCharsets.UTF_8));
 		if (Desktop.isDesktopSupported())
@@ -282,63 +334,41 @@ public class TaskPanel extends JPanel
 		}
 	}
 
-	public void refresh()
+	private void update()
 	{
+		RenderedTask renderedTask = getRenderedTask();
 		setBackgroundColor(getTaskBackgroundColor());
-		name.setText(HtmlUtil.wrapWithHtml(task.getName()));
-		description.setText(HtmlUtil.wrapWithHtml(task.getDescription()));
+		name.setText(renderedTask.nameHtml);
+		description.setText(renderedTask.descriptionHtml);
 		toggleTrack.setSelected(task.isTracked());
 		toggleIgnore.setSelected(task.isIgnored());
 
-		setVisible(meetsFilterCriteria());
-
-		revalidate();
-	}
-
-	protected boolean meetsFilterCriteria()
-	{
-		String nameLowercase = task.getName().toLowerCase();
-		String descriptionLowercase = task.getDescription().toLowerCase();
-		if (plugin.taskTextFilter != null &&
-			!nameLowercase.contains(plugin.taskTextFilter) &&
-			!descriptionLowercase.contains(plugin.taskTextFilter))
-		{
-			return false;
-		}
-
-		TasksTrackerConfig config = plugin.getConfig();
-
-		for (Filter filter : filters)
-		{
-			if (!filter.meetsCriteria(task))
-			{
-				return false;
-			}
-		}
-
-		if (config.completedFilter().equals(CompletedFilterValues.INCOMPLETE) && task.isCompleted())
+		ImageIcon renderedTierIcon = renderedTask.getTierIcon(task);
+		if (renderedTierIcon != null)
 		{
-			return false;
+			tierIcon.setMinimumSize(new Dimension(Constants.ITEM_SPRITE_WIDTH, Constants.ITEM_SPRITE_HEIGHT));
+			tierIcon.setIcon(renderedTierIcon);
+			tierIcon.setBorder(new EmptyBorder(0, 0, 0, 5));
 		}
-		if (config.completedFilter().equals(CompletedFilterValues.COMPLETE) && !task.isCompleted())
+		else
 		{
-			return false;
+			tierIcon.setIcon(null);
+			tierIcon.setBorder(new EmptyBorder(0, 0, 0, 0));
 		}
+	}
 
-		if (config.ignoredFilter().equals(IgnoredFilterValues.NOT_IGNORED) && task.isIgnored())
-		{
-			return false;
-		}
-		if (config.ignoredFilter().equals(IgnoredFilterValues.IGNORED) && !task.isIgnored())
-		{
-			return false;
-		}
+	private void toggleTracked()
+	{
+		task.setTracked(!task.isTracked());
+		plugin.pluginPanel.taskListPanel.refresh(task);
+		plugin.saveCurrentTaskTypeData();
+	}
 
-		if (config.trackedFilter().equals(TrackedFilterValues.UNTRACKED) && task.isTracked())
-		{
-			return false;
-		}
-		return !config.trackedFilter().equals(TrackedFilterValues.TRACKED) || task.isTracked();
+	private void toggleIgnored()
+	{
+		task.setIgnored(!task.isIgnored());
+		plugin.pluginPanel.taskListPanel.refresh(task);
+		plugin.saveCurrentTaskTypeData();
 	}
 
 	private void setBackgroundColor(Color color)
@@ -368,52 +398,43 @@ public class TaskPanel extends JPanel
 		return getTaskTooltip();
 	}
 
-	private String getSkillSectionHtml()
+	private String getSkillSectionHtml(int[] playerLevels)
 	{
-		List<TaskDefinitionSkill> requiredSkills = task.getTaskDefinition().getSkills();
-		if (requiredSkills == null)
+		TaskSkillIndex skillIndex = plugin.getTaskService().getSkillIndex();
+		if (task.getTaskDefinition().getSkills() == null || skillIndex == null)
 		{
 			return null;
 		}
+		int[] skillOrdinals = skillIndex.getSkillOrdinals(task);
+		int[] requiredLevels = skillIndex.getLevels(task);
 		StringBuilder skillSection = new StringBuilder();
 		skillSection.append(HtmlUtil.HTML_LINE_BREAK);
-		for (TaskDefinitionSkill requiredSkill : requiredSkills)
+		for (int i = 0; i < skillOrdinals.length; i++)
 		{
-			Skill skill;
-			try
-			{
-				skill = Skill.valueOf(requiredSkill.getSkill().toUpperCase());
-			}
-			catch (IllegalArgumentException ex)
-			{
-				log.warn("unknown skill: {}", requiredSkill.getSkill().toUpperCase(), ex);
-				continue;
-			}
-
-
-			Integer requiredLevel = requiredSkill.getLevel();
-			int playerLevel = -1;
-			if (requiredLevel == null)
-			{
-				continue;
-			}
-			if (plugin.playerSkills != null)
-			{
-				playerLevel = plugin.playerSkills[skill.ordinal()];
-			}
-			String skillMessage = getSkillRequirementHtml(requiredSkill.getSkill().toLowerCase(), playerLevel, requiredLevel);
+			String skillMessage = getSkillRequirementHtml(skillOrdinals[i], playerLevels[i], requiredLevels[i]);
 			skillSection.append(skillMessage).append(" ");
 		}
 
 		return skillSection.toString();
 	}
 
-	private String getSkillRequirementHtml(String skillName, Integer playerLevel, int requiredLevel)
+	private String getSkillRequirementHtml(int skillOrdinal, int playerLevel, int requiredLevel)
 	{
-		String skillIconPath = "/skill_icons_small/" + skillName + ".png";
-		URL url = SkillIconManager.class.getResource(skillIconPath);
 		Color color = playerLevel >= requiredLevel ? Colors.QUALIFIED_TEXT_COLOR : Colors.UNQUALIFIED_TEXT_COLOR;
-		return HtmlUtil.imageTag(url) + " " + HtmlUtil.colorTag(color, playerLevel + "/" + requiredLevel);
+		return getSkillIconTag(skillOrdinal) + " " + HtmlUtil.colorTag(color, playerLevel + "/" + requiredLevel);
+	}
+
+	private static String getSkillIconTag(int skillOrdinal)
+	{
+		String iconTag = SKILL_ICON_TAGS[skillOrdinal];
+		if (iconTag == null)
+		{
+			String skillIconPath = "/skill_icons_small/" + Skill.values()[skillOrdinal].getName().toLowerCase() + ".png";
+			URL url = SkillIconManager.class.getResource(skillIconPath);
+			iconTag = HtmlUtil.imageTag(url);
+			SKILL_ICON_TAGS[skillOrdinal] = iconTag;
+		}
+		return iconTag;
 	}
 
 	private String getPointsTooltipText()
@@ -425,4 +446,48 @@ public class TaskPanel extends JPanel
 		}
 		return " - " + points + " points";
 	}
+
+	private RenderedTask getRenderedTask()
+	{
+		RenderedTask renderedTask = renderedTasks.get(task);
+		if (renderedTask == null)
+		{
+			renderedTask = new RenderedTask(task);
+			renderedTasks.put(task, renderedTask);
+		}
+		return renderedTask;
+	}
+
+	/**
+	 * Text and icons of a task, built when the task is first shown. The tooltip is built when first hovered and kept
+	 * with the state it shows.
+	 */
+	private static class RenderedTask
+	{
+		private final String nameHtml;
+		private final String descriptionHtml;
+		private ImageIcon tierIcon;
+		private String tooltip;
+		private long tooltipCompletedOn;
+		private int[] tooltipLevels;
+
+		private RenderedTask(TaskFromStruct task)
+		{
+			nameHtml = HtmlUtil.wrapWithHtml(task.getName());
+			descriptionHtml = HtmlUtil.wrapWithHtml(task.getDescription());
+		}
+
+		/**
+		 * @return the icon of the task's tier, or null while its sprite is not loaded
+		 */
+		private ImageIcon getTierIcon(TaskFromStruct task)
+		{
+			if (tierIcon == null)
+			{
+				BufferedImage tierSprite = task.getTaskType().getTierSprites().get(task.getTier());
+				tierIcon = tierSprite != null ? new ImageIcon(tierSprite) : null;
+			}
+			return tierIcon;
+		}
+	}
 }
@@ -2,6 +2,7 @@ package net.reldo.taskstracker.panel;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.util.Collection;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +24,7 @@ public class TasksTrackerPluginPanel extends PluginPanel
 
 	private boolean loggedIn = false;
 	private TaskService taskService;
+	private final PanelRefreshCoalescer refreshCoalescer = new PanelRefreshCoalescer(() -> refresh(null), this::refreshTasks);
 
 	public TasksTrackerPluginPanel(TasksTrackerPlugin plugin, TasksTrackerConfig config, SpriteManager spriteManager, TaskService taskService)
 	{
@@ -64,6 +66,30 @@ public class TasksTrackerPluginPanel extends PluginPanel
 		}
 	}
 
+	public void refreshTasks(Collection<TaskFromStruct> tasks)
+	{
+		if (loggedIn)
+		{
+			loggedInPanel.refreshTasks(tasks);
+		}
+	}
+
+	/**
+	 * Refresh every task on a coming frame, may be called from any thread
+	 */
+	public void requestRefresh()
+	{
+		refreshCoalescer.requestAll();
+	}
+
+	/**
+	 * Refresh changed tasks on a coming frame, may be called from any thread
+	 */
+	public void requestRefresh(Collection<TaskFromStruct> tasks)
+	{
+		refreshCoalescer.request(tasks);
+	}
+
 	public void setLoggedIn(boolean loggedIn)
 	{
 		if(SwingUtilities.isEventDispatchThread())
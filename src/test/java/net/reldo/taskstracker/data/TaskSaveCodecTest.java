@@ -0,0 +1,160 @@
+package net.reldo.taskstracker.data;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import net.reldo.taskstracker.data.task.ConfigTaskSave;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+import net.reldo.taskstracker.data.task.TaskParamStore;
+import net.reldo.taskstracker.data.task.TaskType;
+import net.reldo.taskstracker.data.task.TestTasks;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSaveCodecTest
+{
+	private final TaskType taskType = TestTasks.createTaskType();
+	private final TaskParamStore paramStore = new TaskParamStore(taskType);
+
+	@Test
+	public void emptySaveRoundTrips()
+	{
+		String encoded = TaskSaveCodec.encode(Collections.emptyList());
+
+		assertTrue(TaskSaveCodec.isEncoded(encoded));
+		assertTrue(TaskSaveCodec.decode(encoded).isEmpty());
+	}
+
+	@Test
+	public void tasksWithoutProgressAreLeftOut()
+	{
+		List<TaskFromStruct> tasks = new ArrayList<>();
+		tasks.add(createTask(0, 0, 0, 0));
+		tasks.add(createTask(3, 0, 0, 0));
+
+		assertTrue(TaskSaveCodec.decode(TaskSaveCodec.encode(tasks)).isEmpty());
+	}
+
+	@Test
+	public void sparseIdsRoundTrip()
+	{
+		List<TaskFromStruct> tasks = new ArrayList<>();
+		tasks.add(createTask(0, 1_700_000_000_000L, 0, 0));
+		tasks.add(createTask(7, 0, 1_700_000_000_500L, 0));
+		tasks.add(createTask(8, 1_600_000_000_000L, 1_600_000_000_001L, 1_600_000_000_002L));
+		tasks.add(createTask(9, 0, 0, 0));
+		tasks.add(createTask(1000, 0, 0, 1_500_000_000_000L));
+
+		List<ConfigTaskSave> saves = TaskSaveCodec.decode(TaskSaveCodec.encode(tasks));
+
+		assertEquals(4, saves.size());
+		assertSave(saves.get(0), 0, 1_700_000_000_000L, 0, 0);
+		assertSave(saves.get(1), 7, 0, 1_700_000_000_500L, 0);
+		assertSave(saves.get(2), 8, 1_600_000_000_000L, 1_600_000_000_001L, 1_600_000_000_002L);
+		assertSave(saves.get(3), 1000, 0, 0, 1_500_000_000_000L);
+	}
+
+	@Test
+	public void largeTimestampsRoundTrip()
+	{
+		// Deltas between these overflow a long, which the encoding must survive
+		List<TaskFromStruct> tasks = new ArrayList<>();
+		tasks.add(createTask(1, 1, 0, 0));
+		tasks.add(createTask(2, Long.MAX_VALUE, 0, 0));
+		tasks.add(createTask(3, 1, 0, 0));
+		tasks.add(createTask(4, Long.MAX_VALUE - 1, Long.MAX_VALUE, Long.MAX_VALUE));
+
+		List<ConfigTaskSave> saves = TaskSaveCodec.decode(TaskSaveCodec.encode(tasks));
+
+		assertEquals(4, saves.size());
+		assertSave(saves.get(0), 1, 1, 0, 0);
+		assertSave(saves.get(1), 2, Long.MAX_VALUE, 0, 0);
+		assertSave(saves.get(2), 3, 1, 0, 0);
+		assertSave(saves.get(3), 4, Long.MAX_VALUE - 1, Long.MAX_VALUE, Long.MAX_VALUE);
+	}
+
+	@Test
+	public void legacyJsonIsNotEncoded()
+	{
+		assertFalse(TaskSaveCodec.isEncoded("{\"10\":{\"completed\":1,\"tracked\":0,\"structId\":10,\"ignored\":0}}"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void legacyJsonIsNotDecoded()
+	{
+		TaskSaveCodec.decode("{}");
+	}
+
+	@Test
+	public void truncatedSaveIsRejected()
+	{
+		List<TaskFromStruct> tasks = new ArrayList<>();
+		tasks.add(createTask(5, 1_700_000_000_000L, 0, 0));
+		tasks.add(createTask(40, 1_700_000_000_000L, 1_700_000_000_000L, 0));
+		byte[] bytes = decodeBase64(TaskSaveCodec.encode(tasks));
+
+		for (int length = 0; length < bytes.length; length++)
+		{
+			byte[] truncated = new byte[length];
+			System.arraycopy(bytes, 0, truncated, 0, length);
+			assertRejected(encodeBase64(truncated));
+		}
+	}
+
+	@Test
+	public void corruptSaveIsRejected()
+	{
+		// Not base64
+		assertRejected(TaskSaveCodec.PREFIX + "*not base64*");
+		// Varint without an end
+		assertRejected(encodeBase64(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+			(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80}));
+		// Size of 2^32, which would wrap to 0 if narrowed first
+		assertRejected(encodeBase64(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10, 0, 0, 0}));
+		// Size larger than the bitsets that follow
+		assertRejected(encodeBase64(new byte[]{100, 0}));
+	}
+
+	private TaskFromStruct createTask(int id, long completedOn, long trackedOn, long ignoredOn)
+	{
+		TaskFromStruct task = TestTasks.createTask(taskType, paramStore, id, 100 + id, "task " + id);
+		task.setCompletedOn(completedOn);
+		task.setTrackedOn(trackedOn);
+		task.setIgnoredOn(ignoredOn);
+		return task;
+	}
+
+	private static void assertSave(ConfigTaskSave save, int taskId, long completed, long tracked, long ignored)
+	{
+		assertEquals(taskId, save.taskId);
+		assertEquals(completed, save.completed);
+		assertEquals(tracked, save.tracked);
+		assertEquals(ignored, save.ignored);
+	}
+
+	private static void assertRejected(String configValue)
+	{
+		try
+		{
+			TaskSaveCodec.decode(configValue);
+		}
+		catch (IllegalArgumentException ex)
+		{
+			return;
+		}
+		throw new AssertionError("decoded corrupt save " + configValue);
+	}
+
+	private static byte[] decodeBase64(String configValue)
+	{
+		return Base64.getDecoder().decode(configValue.substring(TaskSaveCodec.PREFIX.length()));
+	}
+
+	private static String encodeBase64(byte[] bytes)
+	{
+		return TaskSaveCodec.PREFIX + Base64.getEncoder().encodeToString(bytes);
+	}
+}
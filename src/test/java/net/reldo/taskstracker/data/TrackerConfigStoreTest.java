@@ -0,0 +1,180 @@
+package net.reldo.taskstracker.data;
+
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import net.reldo.taskstracker.data.task.ConfigTaskSave;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+import net.reldo.taskstracker.data.task.TaskParamStore;
+import net.reldo.taskstracker.data.task.TaskService;
+import net.reldo.taskstracker.data.task.TaskSet;
+import net.reldo.taskstracker.data.task.TaskType;
+import net.reldo.taskstracker.data.task.TestTasks;
+import net.runelite.client.config.ConfigManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TrackerConfigStoreTest
+{
+	private static final String CONFIG_KEY = "tasks2-" + TestTasks.TASK_JSON_NAME;
+	private static final String LEGACY_CONFIG_KEY = "tasks-" + TestTasks.TASK_JSON_NAME;
+	private static final String RS_PROFILE_KEY = "rsprofile.test";
+
+	private final TaskType taskType = TestTasks.createTaskType();
+	private final TaskParamStore paramStore = new TaskParamStore(taskType);
+	private final List<TaskFromStruct> tasks = new ArrayList<>();
+	private ConfigManager configManager;
+	private ScheduledExecutorService executor;
+	private TrackerConfigStore store;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void before()
+	{
+		for (int id = 0; id < 3; id++)
+		{
+			tasks.add(TestTasks.createTask(taskType, paramStore, id, 10 + id, "task " + id));
+		}
+		TaskSet taskSet = TaskSet.build(taskType, tasks, paramStore);
+
+		// Saves are applied as TaskService applies them: json by struct id, the compact encoding by task id
+		TaskService taskService = mock(TaskService.class);
+		when(taskService.getTaskSet()).thenReturn(taskSet);
+		doAnswer(invocation -> {
+			Map<Integer, ConfigTaskSave> saveData = invocation.getArgument(1);
+			for (TaskFromStruct task : tasks)
+			{
+				ConfigTaskSave save = saveData.get(task.getStructId());
+				if (save != null)
+				{
+					task.loadConfigSave(save);
+				}
+			}
+			return null;
+		}).when(taskService).applySave(eq(taskType), any(HashMap.class));
+		doAnswer(invocation -> {
+			List<ConfigTaskSave> saveData = invocation.getArgument(1);
+			for (ConfigTaskSave save : saveData)
+			{
+				taskSet.getTaskById(save.taskId).loadConfigSave(save);
+			}
+			return null;
+		}).when(taskService).applySave(eq(taskType), anyList());
+
+		configManager = mock(ConfigManager.class);
+		when(configManager.getRSProfileKey()).thenReturn(RS_PROFILE_KEY);
+		executor = Executors.newSingleThreadScheduledExecutor();
+
+		store = Guice.createInjector(binder -> {
+			binder.bind(TaskService.class).toInstance(taskService);
+			binder.bind(ConfigManager.class).toInstance(configManager);
+			binder.bind(ScheduledExecutorService.class).toInstance(executor);
+			binder.bind(Gson.class).toInstance(new Gson());
+		}).getInstance(TrackerConfigStore.class);
+	}
+
+	@After
+	public void after()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void legacyJsonIsMigrated()
+	{
+		setSavedValue(LEGACY_CONFIG_KEY, "{"
+			+ "\"10\":{\"completed\":1700000000000,\"tracked\":0,\"structId\":10,\"ignored\":0},"
+			+ "\"12\":{\"completed\":0,\"tracked\":1700000000001,\"structId\":12,\"ignored\":1700000000002}"
+			+ "}");
+
+		store.loadCurrentTaskTypeFromConfig();
+
+		assertEquals(1_700_000_000_000L, tasks.get(0).getCompletedOn());
+		assertFalse(tasks.get(1).isCompleted() || tasks.get(1).isTracked() || tasks.get(1).isIgnored());
+		assertEquals(1_700_000_000_001L, tasks.get(2).getTrackedOn());
+		assertEquals(1_700_000_000_002L, tasks.get(2).getIgnoredOn());
+
+		// The migrated save is written under the new key in the compact encoding, leaving the legacy json in place
+		store.flush();
+		verify(configManager, never()).setConfiguration(anyString(), anyString(), eq(LEGACY_CONFIG_KEY), anyString());
+		verify(configManager, never()).unsetRSProfileConfiguration(anyString(), anyString());
+		ArgumentCaptor<String> configValue = ArgumentCaptor.forClass(String.class);
+		verify(configManager).setConfiguration(eq(TrackerConfigStore.CONFIG_GROUP_NAME), eq(RS_PROFILE_KEY), eq(CONFIG_KEY), configValue.capture());
+		assertTrue(TaskSaveCodec.isEncoded(configValue.getValue()));
+		List<ConfigTaskSave> saves = TaskSaveCodec.decode(configValue.getValue());
+		assertEquals(2, saves.size());
+		assertEquals(0, saves.get(0).taskId);
+		assertEquals(1_700_000_000_000L, saves.get(0).completed);
+		assertEquals(2, saves.get(1).taskId);
+		assertEquals(1_700_000_000_001L, saves.get(1).tracked);
+		assertEquals(1_700_000_000_002L, saves.get(1).ignored);
+	}
+
+	@Test
+	public void encodedSaveIsAppliedWithoutRewrite()
+	{
+		TaskParamStore savedParamStore = new TaskParamStore(taskType);
+		TaskFromStruct savedTask = TestTasks.createTask(taskType, savedParamStore, 1, 11, "task 1");
+		savedTask.setCompletedOn(1_700_000_000_000L);
+		setSavedValue(CONFIG_KEY, TaskSaveCodec.encode(Collections.singletonList(savedTask)));
+		setSavedValue(LEGACY_CONFIG_KEY, "{}");
+
+		store.loadCurrentTaskTypeFromConfig();
+		store.flush();
+
+		assertEquals(1_700_000_000_000L, tasks.get(1).getCompletedOn());
+		verify(configManager, never()).setConfiguration(anyString(), anyString(), anyString(), anyString());
+	}
+
+	@Test
+	public void invalidLegacyJsonIsKept()
+	{
+		setSavedValue(LEGACY_CONFIG_KEY, "{not json");
+
+		store.loadCurrentTaskTypeFromConfig();
+		store.flush();
+
+		verify(configManager, never()).unsetRSProfileConfiguration(anyString(), anyString());
+		verify(configManager, never()).setConfiguration(anyString(), anyString(), anyString(), anyString());
+	}
+
+	@Test
+	public void invalidEncodingIsWipedAndLegacyJsonMigrated()
+	{
+		setSavedValue(CONFIG_KEY, TaskSaveCodec.PREFIX + "*not base64*");
+		setSavedValue(LEGACY_CONFIG_KEY, "{\"11\":{\"completed\":1700000000000,\"tracked\":0,\"structId\":11,\"ignored\":0}}");
+
+		store.loadCurrentTaskTypeFromConfig();
+		store.flush();
+
+		verify(configManager).unsetRSProfileConfiguration(TrackerConfigStore.CONFIG_GROUP_NAME, CONFIG_KEY);
+		verify(configManager, never()).unsetRSProfileConfiguration(TrackerConfigStore.CONFIG_GROUP_NAME, LEGACY_CONFIG_KEY);
+		assertEquals(1_700_000_000_000L, tasks.get(1).getCompletedOn());
+		verify(configManager).setConfiguration(eq(TrackerConfigStore.CONFIG_GROUP_NAME), eq(RS_PROFILE_KEY), eq(CONFIG_KEY), anyString());
+	}
+
+	private void setSavedValue(String configKey, String configValue)
+	{
+		when(configManager.getRSProfileConfiguration(TrackerConfigStore.CONFIG_GROUP_NAME, configKey)).thenReturn(configValue);
+	}
+}
@@ -0,0 +1,39 @@
+package net.reldo.taskstracker.data.jsondatastore;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class DataStoreExecutorTest
+{
+	private final DataStoreExecutor executor = new DataStoreExecutor();
+
+	@After
+	public void after()
+	{
+		executor.shutdown();
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void rejectsWorkOnceShutDown()
+	{
+		executor.shutdown();
+		executor.execute(() -> {});
+	}
+
+	@Test
+	public void runsWorkAgainOnceRestarted() throws Exception
+	{
+		executor.start();
+		assertEquals("first", CompletableFuture.supplyAsync(() -> "first", executor).get(5, TimeUnit.SECONDS));
+
+		// The plugin is disabled and enabled again, keeping the same singleton
+		executor.shutdown();
+		executor.start();
+		assertEquals("io", CompletableFuture.supplyAsync(() -> "io", executor).get(5, TimeUnit.SECONDS));
+		assertEquals("prefetch", CompletableFuture.supplyAsync(() -> "prefetch", executor.getPrefetchExecutor()).get(5, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,190 @@
+package net.reldo.taskstracker.data.jsondatastore.reader;
+
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import net.reldo.taskstracker.data.jsondatastore.JsonDataStore;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CachingDataStoreReaderTest
+{
+	private static final String TASKS = "COMBAT";
+	private static final String ETAG = "\"v1\"";
+
+	private final String baseUrl = JsonDataStore.baseUrl;
+	private MockWebServer server;
+	private File cacheDir;
+	private CachingDataStoreReader reader;
+
+	@Before
+	public void before() throws IOException
+	{
+		server = new MockWebServer();
+		server.start();
+		JsonDataStore.baseUrl = server.url("/store").toString();
+
+		cacheDir = Files.createTempDirectory("json-store").toFile();
+		reader = Guice.createInjector(binder -> {
+			binder.bind(OkHttpClient.class).toInstance(new OkHttpClient());
+			binder.bind(Gson.class).toInstance(new Gson());
+		}).getInstance(CachingDataStoreReader.class);
+		reader.cacheDir = cacheDir;
+	}
+
+	@After
+	public void after() throws IOException
+	{
+		JsonDataStore.baseUrl = baseUrl;
+		server.shutdown();
+		deleteRecursively(cacheDir);
+	}
+
+	@Test
+	public void missIsCachedThenServedWithoutRequest() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody("[1]").setHeader("ETag", ETAG));
+
+		assertEquals("[1]", readTasks());
+		assertEquals("[1]", readTasks());
+
+		assertEquals(1, server.getRequestCount());
+		assertEquals(1, reader.getMissCount());
+		assertEquals(1, reader.getHitCount());
+		assertEquals(ETAG, reader.getTasksVersion(TASKS));
+	}
+
+	@Test
+	public void staleCopyIsRevalidatedWith304() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody("[1]").setHeader("ETag", ETAG));
+		readTasks();
+		makeStale();
+		server.enqueue(new MockResponse().setResponseCode(304));
+
+		assertEquals("[1]", readTasks());
+
+		server.takeRequest();
+		assertEquals(ETAG, server.takeRequest().getHeader("If-None-Match"));
+		assertEquals(1, reader.getRevalidatedCount());
+		// Revalidated copies are fresh again
+		assertEquals("[1]", readTasks());
+		assertEquals(2, server.getRequestCount());
+	}
+
+	@Test
+	public void staleCopyIsReplacedByChangedBody() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody("[1]").setHeader("ETag", ETAG));
+		readTasks();
+		makeStale();
+		server.enqueue(new MockResponse().setBody("[2]").setHeader("ETag", "\"v2\""));
+
+		assertEquals("[2]", readTasks());
+		assertEquals("[2]", readTasks());
+		assertEquals("\"v2\"", reader.getTasksVersion(TASKS));
+		assertEquals(2, server.getRequestCount());
+	}
+
+	@Test
+	public void staleCopyIsServedWhenStoreFails() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody("[1]").setHeader("ETag", ETAG));
+		readTasks();
+		makeStale();
+		server.enqueue(new MockResponse().setResponseCode(500));
+
+		assertEquals("[1]", readTasks());
+		assertEquals(1, reader.getStaleFallbackCount());
+	}
+
+	@Test(expected = Exception.class)
+	public void missFailsWithoutCachedCopy() throws Exception
+	{
+		server.enqueue(new MockResponse().setResponseCode(500));
+		readTasks();
+	}
+
+	@Test
+	public void abandonedDownloadIsNotCached() throws Exception
+	{
+		byte[] body = new byte[256 * 1024];
+		Arrays.fill(body, (byte) ' ');
+		server.enqueue(new MockResponse().setBody(new String(body, StandardCharsets.UTF_8)));
+
+		try (InputStream stream = reader.readTasks(TASKS))
+		{
+			assertTrue(stream.read(new byte[1024]) > 0);
+		}
+
+		assertFalse(getTasksFile().exists());
+		assertNull(reader.getTasksVersion(TASKS));
+	}
+
+	@Test
+	public void trailingWhitespaceLeftUnreadIsCached() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody("[1]\n\n").setHeader("ETag", ETAG));
+
+		try (InputStream stream = reader.readTasks(TASKS))
+		{
+			assertEquals(3, stream.read(new byte[3]));
+		}
+
+		assertTrue(getTasksFile().exists());
+		assertEquals("[1]\n\n", new String(Files.readAllBytes(getTasksFile().toPath()), StandardCharsets.UTF_8));
+	}
+
+	private String readTasks() throws Exception
+	{
+		try (InputStream stream = reader.readTasks(TASKS))
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int count;
+			while ((count = stream.read(buffer)) != -1)
+			{
+				bytes.write(buffer, 0, count);
+			}
+			return bytes.toString(StandardCharsets.UTF_8.name());
+		}
+	}
+
+	private File getTasksFile()
+	{
+		return new File(cacheDir, HttpDataStoreReader.getTasksPath(TASKS));
+	}
+
+	private void makeStale() throws IOException
+	{
+		File metaFile = new File(getTasksFile().getPath() + ".meta");
+		Files.write(metaFile.toPath(), ("{\"eTag\":" + new Gson().toJson(ETAG) + ",\"fetchedAt\":0}").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void deleteRecursively(File file)
+	{
+		File[] children = file.listFiles();
+		if (children != null)
+		{
+			for (File child : children)
+			{
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,129 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import net.reldo.taskstracker.data.task.filters.Filter;
+import net.reldo.taskstracker.data.task.filters.ParamButtonFilter;
+import net.reldo.taskstracker.data.task.filters.ParamDropdownFilter;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaskBitmapIndexTest
+{
+	private final TaskType taskType = TestTasks.createTaskType();
+	private final TaskParamStore paramStore = new TaskParamStore(taskType);
+	private final List<TaskFromStruct> tasks = new ArrayList<>();
+	private final Random random = new Random(13);
+	private TaskBitmapIndex index;
+	private int tierOrdinal;
+
+	@Before
+	public void before()
+	{
+		for (int id = 0; id < 100; id++)
+		{
+			tasks.add(TestTasks.createTask(taskType, paramStore, id, 100 + id, "task " + id, 1 + random.nextInt(6)));
+		}
+		index = TaskBitmapIndex.build(paramStore, taskType.getFilters());
+		tierOrdinal = paramStore.getIntOrdinal("tier");
+	}
+
+	@Test
+	public void filterParamsAreIndexed()
+	{
+		assertTrue(index.isIndexed(tierOrdinal));
+		assertFalse(index.isIndexed(paramStore.getIntOrdinal("id")));
+		assertFalse(index.isIndexed(-1));
+		assertEquals(tasks.size(), index.all().cardinality());
+
+		for (int tier = 1; tier <= 6; tier++)
+		{
+			BitSet expected = new BitSet();
+			for (TaskFromStruct task : tasks)
+			{
+				if (task.getTier() == tier)
+				{
+					expected.set(task.getRow());
+				}
+			}
+			assertEquals("tier " + tier, expected, index.get(tierOrdinal, tier));
+		}
+		assertNull(index.get(tierOrdinal, 7));
+	}
+
+	@Test
+	public void appliedFiltersMatchTaskByTask()
+	{
+		for (int i = 0; i < 50; i++)
+		{
+			int[] selectedValues = random.ints(random.nextInt(4), 0, 8).sorted().distinct().toArray();
+			assertApplyMatches(new ParamButtonFilter(tierOrdinal, selectedValues));
+			assertApplyMatches(new ParamDropdownFilter(tierOrdinal, random.nextInt(8)));
+		}
+	}
+
+	@Test
+	public void stateBitsFollowTaskDates()
+	{
+		int stateVersion = paramStore.getStateVersion();
+		tasks.get(3).setCompletedOn(1_700_000_000_000L);
+		tasks.get(5).setTrackedOn(1_700_000_000_000L);
+		tasks.get(7).setIgnoredOn(1_700_000_000_000L);
+
+		assertNotEquals(stateVersion, paramStore.getStateVersion());
+		assertEquals(rows(3), andState(TaskParamStore.COMPLETED, true));
+		assertEquals(rows(5), andState(TaskParamStore.TRACKED, true));
+		assertEquals(rows(7), andState(TaskParamStore.IGNORED, true));
+		assertEquals(tasks.size() - 1, andState(TaskParamStore.COMPLETED, false).cardinality());
+
+		stateVersion = paramStore.getStateVersion();
+		// A new date for a task already completed changes no state
+		tasks.get(3).setCompletedOn(1_600_000_000_000L);
+		assertEquals(stateVersion, paramStore.getStateVersion());
+
+		tasks.get(3).setCompletedOn(0);
+		assertNotEquals(stateVersion, paramStore.getStateVersion());
+		assertTrue(andState(TaskParamStore.COMPLETED, true).isEmpty());
+	}
+
+	private void assertApplyMatches(Filter filter)
+	{
+		BitSet expected = new BitSet();
+		for (TaskFromStruct task : tasks)
+		{
+			if (filter.meetsCriteria(task))
+			{
+				expected.set(task.getRow());
+			}
+		}
+
+		BitSet matches = index.all();
+		filter.apply(matches, index);
+
+		assertEquals(expected, matches);
+	}
+
+	private BitSet andState(int state, boolean value)
+	{
+		BitSet rows = index.all();
+		paramStore.andState(rows, state, value);
+		return rows;
+	}
+
+	private BitSet rows(int... positions)
+	{
+		BitSet rows = new BitSet();
+		for (int position : positions)
+		{
+			rows.set(tasks.get(position).getRow());
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,182 @@
+package net.reldo.taskstracker.data.task;
+
+import com.google.inject.Guice;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.reldo.taskstracker.TasksTrackerConfig;
+import net.runelite.api.Client;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TaskCompletionProcessorTest
+{
+	private static final int VARP = TestTasks.TASK_VARPS[0];
+	private static final int SECOND_VARP = TestTasks.TASK_VARPS[1];
+
+	private final Map<Integer, Integer> varpValues = new HashMap<>();
+	private final List<TaskFromStruct> tasks = new ArrayList<>();
+	private TaskService taskService;
+	private boolean untrackUponCompletion = false;
+	private TaskCompletionProcessor processor;
+
+	@Before
+	public void before()
+	{
+		Client client = mock(Client.class);
+		when(client.isClientThread()).thenReturn(true);
+		when(client.getVarpValue(anyInt())).thenAnswer(invocation -> varpValues.getOrDefault(invocation.<Integer>getArgument(0), 0));
+
+		taskService = mock(TaskService.class);
+		loadTaskSet();
+
+		TasksTrackerConfig config = new TasksTrackerConfig()
+		{
+			@Override
+			public boolean untrackUponCompletion()
+			{
+				return untrackUponCompletion;
+			}
+		};
+
+		processor = Guice.createInjector(binder -> {
+			binder.bind(Client.class).toInstance(client);
+			binder.bind(TaskService.class).toInstance(taskService);
+			binder.bind(TasksTrackerConfig.class).toInstance(config);
+		}).getInstance(TaskCompletionProcessor.class);
+	}
+
+	@Test
+	public void firstPassEvaluatesEveryBit()
+	{
+		// Stale local state is corrected, not just set bits applied
+		tasks.get(1).setCompletedOn(1_700_000_000_000L);
+		varpValues.put(VARP, 1 | 1 << 5);
+		varpValues.put(SECOND_VARP, 1 << 2);
+
+		List<TaskFromStruct> changedTasks = processor.process(null, false);
+
+		assertEquals(ids(0, 1, 5, 34), ids(changedTasks));
+		assertEquals(ids(0, 5, 34), completedIds());
+	}
+
+	@Test
+	public void laterPassesOnlyTouchFlippedBits()
+	{
+		varpValues.put(VARP, 1 | 1 << 5);
+		processor.process(null, false);
+		// Not backed by a bit flip, so left alone
+		tasks.get(1).setCompletedOn(1_700_000_000_000L);
+
+		varpValues.put(VARP, 1 | 1 << 6);
+		List<TaskFromStruct> changedTasks = processor.process(Collections.singletonList(VARP), false);
+
+		assertEquals(ids(5, 6), ids(changedTasks));
+		assertEquals(ids(0, 1, 6), completedIds());
+		assertTrue(processor.process(Collections.singletonList(VARP), false).isEmpty());
+	}
+
+	@Test
+	public void forceEvaluatesEveryBit()
+	{
+		varpValues.put(VARP, 1);
+		processor.process(null, false);
+		tasks.get(1).setCompletedOn(1_700_000_000_000L);
+
+		List<TaskFromStruct> changedTasks = processor.process(Collections.singletonList(VARP), true);
+
+		assertEquals(ids(1), ids(changedTasks));
+		assertEquals(ids(0), completedIds());
+	}
+
+	@Test
+	public void newTaskSetEvaluatesEveryBit()
+	{
+		varpValues.put(VARP, 1);
+		processor.process(null, false);
+
+		loadTaskSet();
+		List<TaskFromStruct> changedTasks = processor.process(Collections.singletonList(VARP), false);
+
+		assertEquals(ids(0), ids(changedTasks));
+		assertTrue(tasks.get(0).isCompleted());
+	}
+
+	@Test
+	public void completionUntracksWhenConfigured()
+	{
+		untrackUponCompletion = true;
+		tasks.get(3).setTrackedOn(1_700_000_000_000L);
+		tasks.get(4).setTrackedOn(1_700_000_000_000L);
+		varpValues.put(VARP, 1 << 3);
+
+		processor.process(null, false);
+
+		assertFalse(tasks.get(3).isTracked());
+		assertTrue(tasks.get(4).isTracked());
+	}
+
+	@Test
+	public void unknownVarpsAreIgnored()
+	{
+		processor.process(null, false);
+		varpValues.put(12345, -1);
+
+		assertTrue(processor.process(Collections.singletonList(12345), false).isEmpty());
+		assertTrue(processor.process(Collections.singletonList(-1), true).isEmpty());
+	}
+
+	/**
+	 * Replace the task set with a new load of 40 tasks, ids 0 to 31 on the first task varp and 32 to 39 on the second
+	 */
+	private void loadTaskSet()
+	{
+		TaskType taskType = TestTasks.createTaskType();
+		TaskParamStore paramStore = new TaskParamStore(taskType);
+		tasks.clear();
+		for (int id = 0; id < 40; id++)
+		{
+			tasks.add(TestTasks.createTask(taskType, paramStore, id, 1000 + id, "task " + id));
+		}
+		when(taskService.getTaskSet()).thenReturn(TaskSet.build(taskType, tasks, paramStore));
+	}
+
+	private List<Integer> completedIds()
+	{
+		List<Integer> ids = new ArrayList<>();
+		for (TaskFromStruct task : tasks)
+		{
+			if (task.isCompleted())
+			{
+				ids.add(task.getId());
+			}
+		}
+		return ids;
+	}
+
+	private static List<Integer> ids(List<TaskFromStruct> tasks)
+	{
+		List<Integer> ids = new ArrayList<>();
+		for (TaskFromStruct task : tasks)
+		{
+			ids.add(task.getId());
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+
+	private static List<Integer> ids(Integer... ids)
+	{
+		List<Integer> list = new ArrayList<>();
+		Collections.addAll(list, ids);
+		return list;
+	}
+}
@@ -0,0 +1,121 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSearchIndexTest
+{
+	@Test
+	public void exactSearchFindsSubstrings()
+	{
+		TaskSearchIndex index = TaskSearchIndex.build(new String[][]{
+			{"kill jad", "defeat the fight caves", ""},
+			{"perfect zulrah", "kill zulrah without taking damage", ""},
+			null,
+			{"barrows novice", "open the barrows chest", "any brother"},
+		});
+
+		assertEquals(bits(1), index.search("zulrah"));
+		assertEquals(bits(0, 1), index.search("kill"));
+		assertEquals(bits(3), index.search("brother"));
+		assertEquals(bits(0, 1, 3), index.search("e"));
+		assertEquals(bits(), index.search("vorkath"));
+	}
+
+	@Test
+	public void fuzzySearchToleratesTypos()
+	{
+		TaskSearchIndex index = TaskSearchIndex.build(new String[][]{
+			{"dragon slayer", "", ""},
+			{"barrows novice", "", ""},
+		});
+
+		TaskSearchResult result = index.search("dragn slayer", true, null, () -> false);
+
+		assertEquals(bits(0), result.getMatches());
+		assertEquals(2, result.getMaxEdits());
+	}
+
+	@Test
+	public void namesRankAboveDescriptions()
+	{
+		TaskSearchIndex index = TaskSearchIndex.build(new String[][]{
+			{"perfect jad", "", ""},
+			{"fight caves", "defeat jad", ""},
+		});
+
+		TaskSearchResult result = index.search("jad", false, null, () -> false);
+
+		assertTrue(result.getScores()[0] > result.getScores()[1]);
+	}
+
+	@Test
+	public void cancelledSearchReturnsNull()
+	{
+		TaskSearchIndex index = TaskSearchIndex.build(TestSearchFields.generateFields(new Random(1), 2000));
+
+		assertNull(index.search("e", false, null, () -> true));
+	}
+
+	@Test
+	public void fuzzyCandidatesArePruned()
+	{
+		String[][] fields = TestSearchFields.generateFields(new Random(2), 2000);
+		TaskSearchIndex index = TaskSearchIndex.build(fields);
+
+		// Two pieces of three characters, with one edit
+		BitSet candidates = index.getCandidates("zulreh", 1);
+
+		assertTrue(candidates.cardinality() < fields.length / 2);
+	}
+
+	@Test
+	public void searchMatchesFullScan()
+	{
+		Random random = new Random(3);
+		String[][] fields = TestSearchFields.generateFields(random, 1000);
+		TaskSearchIndex index = TaskSearchIndex.build(fields);
+
+		for (int i = 0; i < 500; i++)
+		{
+			String query = TestSearchFields.generateQuery(random);
+			for (boolean fuzzy : new boolean[]{false, true})
+			{
+				TaskSearchMatcher matcher = new TaskSearchMatcher(query, fuzzy ? TaskSearchMatcher.getMaxEdits(query.length()) : 0);
+				BitSet expected = scan(fields, matcher);
+				assertEquals(query, expected, index.search(query, fuzzy, null, () -> false).getMatches());
+			}
+		}
+	}
+
+	private static BitSet scan(String[][] fields, TaskSearchMatcher matcher)
+	{
+		BitSet matches = new BitSet(fields.length);
+		for (int row = 0; row < fields.length; row++)
+		{
+			for (String field : fields[row])
+			{
+				if (matcher.match(field))
+				{
+					matches.set(row);
+					break;
+				}
+			}
+		}
+		return matches;
+	}
+
+	private static BitSet bits(int... rows)
+	{
+		BitSet bits = new BitSet();
+		for (int row : rows)
+		{
+			bits.set(row);
+		}
+		return bits;
+	}
+}
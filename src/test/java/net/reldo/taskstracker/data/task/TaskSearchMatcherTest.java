@@ -0,0 +1,83 @@
+package net.reldo.taskstracker.data.task;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSearchMatcherTest
+{
+	@Test
+	public void longerQueriesTolerateMoreEdits()
+	{
+		assertEquals(0, TaskSearchMatcher.getMaxEdits(1));
+		assertEquals(0, TaskSearchMatcher.getMaxEdits(3));
+		assertEquals(1, TaskSearchMatcher.getMaxEdits(4));
+		assertEquals(1, TaskSearchMatcher.getMaxEdits(6));
+		assertEquals(2, TaskSearchMatcher.getMaxEdits(7));
+		assertEquals(2, TaskSearchMatcher.getMaxEdits(40));
+	}
+
+	@Test
+	public void exactMatchPrefersWordStart()
+	{
+		TaskSearchMatcher matcher = new TaskSearchMatcher("ox", 0);
+
+		assertTrue(matcher.match("box ox"));
+		assertEquals(0, matcher.getEdits());
+		assertEquals(4, matcher.getStart());
+
+		assertTrue(matcher.match("noxious"));
+		assertEquals(1, matcher.getStart());
+
+		assertFalse(matcher.match("o x"));
+	}
+
+	@Test
+	public void fuzzyMatchCountsEdits()
+	{
+		// Substitution
+		assertMatch("goblon", "kill a goblin", 1, 7);
+		// Character missing from the query
+		assertMatch("gobln", "kill a goblin", 1, 7);
+		// Extra character in the query
+		assertMatch("gobblin", "kill a goblin", 1, 7);
+		assertMatch("goblin", "kill a goblin", 0, 7);
+		assertMatch("gbbln", "goblin", 2, 0);
+	}
+
+	@Test
+	public void fuzzyMatchRespectsBound()
+	{
+		TaskSearchMatcher matcher = new TaskSearchMatcher("gbbln", 1);
+
+		assertFalse(matcher.match("kill a goblin"));
+		assertFalse(matcher.match(""));
+	}
+
+	@Test
+	public void fuzzyMatchPrefersWordStart()
+	{
+		assertMatch("goblin", "hobgoblin goblin", 0, 10);
+		assertMatch("goblin", "hobgoblin", 0, 3);
+	}
+
+	@Test
+	public void wordStartsFollowNonAlphanumerics()
+	{
+		assertTrue(TaskSearchMatcher.isWordStart("a b", 0));
+		assertTrue(TaskSearchMatcher.isWordStart("a b", 2));
+		assertTrue(TaskSearchMatcher.isWordStart("a-b", 2));
+		assertFalse(TaskSearchMatcher.isWordStart("ab", 1));
+		assertFalse(TaskSearchMatcher.isWordStart("a ", 2));
+	}
+
+	private static void assertMatch(String query, String text, int edits, int start)
+	{
+		TaskSearchMatcher matcher = new TaskSearchMatcher(query, 2);
+
+		assertTrue(query + " in " + text, matcher.match(text));
+		assertEquals(query + " in " + text, edits, matcher.getEdits());
+		assertEquals(query + " in " + text, start, matcher.getStart());
+	}
+}
@@ -0,0 +1,107 @@
+package net.reldo.taskstracker.data.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class TaskSnapshotStoreTest
+{
+	private static final String KEY = "COMBAT|manifest|\"v1\"|230";
+
+	private File snapshotDir;
+	private TaskSnapshotStore store;
+
+	@Before
+	public void before() throws IOException
+	{
+		snapshotDir = Files.createTempDirectory("snapshots").toFile();
+		store = new TaskSnapshotStore();
+		store.snapshotDir = snapshotDir;
+	}
+
+	@After
+	public void after()
+	{
+		File[] files = snapshotDir.listFiles();
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				file.delete();
+			}
+		}
+		snapshotDir.delete();
+	}
+
+	@Test
+	public void snapshotRoundTrips()
+	{
+		TaskType taskType = TestTasks.createTaskType();
+		taskType.getTierPoints().put(1, 5);
+		TaskParamStore paramStore = new TaskParamStore(taskType);
+		List<TaskFromStruct> tasks = new ArrayList<>();
+		tasks.add(TestTasks.createTask(taskType, paramStore, 0, 10, "Noxious Foe"));
+		tasks.add(TestTasks.createTask(taskType, paramStore, 1, 11, null));
+
+		store.write(taskType, KEY, paramStore, tasks);
+		TaskSnapshotStore.Snapshot snapshot = store.read(TestTasks.createTaskType(), KEY);
+
+		assertNotNull(snapshot);
+		assertEquals(5, (int) snapshot.getTierPoints().get(1));
+		assertEquals(taskType.getFilters(), snapshot.getFilters());
+		assertEquals(2, snapshot.getTasks().size());
+		TaskFromStruct task = snapshot.getTasks().get(0);
+		assertEquals(0, task.getId());
+		assertEquals(1, task.getTier());
+		assertEquals("Noxious Foe", task.getName());
+		assertEquals("description 0", task.getDescription());
+		assertEquals(tasks.get(0).getTaskDefinition(), task.getTaskDefinition());
+		assertNull(snapshot.getTasks().get(1).getName());
+		assertEquals(tasks.get(1).getTaskDefinition(), snapshot.getTasks().get(1).getTaskDefinition());
+	}
+
+	@Test
+	public void staleKeyIsNotRead()
+	{
+		TaskType taskType = TestTasks.createTaskType();
+		TaskParamStore paramStore = new TaskParamStore(taskType);
+		store.write(taskType, KEY, paramStore, Collections.singletonList(TestTasks.createTask(taskType, paramStore, 0, 10, "Noxious Foe")));
+
+		assertNull(store.read(taskType, "COMBAT|manifest|\"v2\"|230"));
+		// A key that starts like the written one, or is shorter, is stale too
+		assertNull(store.read(taskType, KEY + "1"));
+		assertNull(store.read(taskType, "COMBAT"));
+		assertNull(store.read(taskType, null));
+		assertNotNull(store.read(taskType, KEY));
+	}
+
+	@Test
+	public void foreignFileIsNotRead() throws IOException
+	{
+		TaskType taskType = TestTasks.createTaskType();
+		Files.write(new File(snapshotDir, "COMBAT.bin").toPath(), new byte[]{1, 2, 3});
+
+		assertNull(store.read(taskType, KEY));
+	}
+
+	@Test
+	public void nothingIsWrittenWithoutKey()
+	{
+		TaskType taskType = TestTasks.createTaskType();
+		TaskParamStore paramStore = new TaskParamStore(taskType);
+
+		store.write(taskType, null, paramStore, Collections.singletonList(TestTasks.createTask(taskType, paramStore, 0, 10, "Noxious Foe")));
+
+		assertFalse(new File(snapshotDir, "COMBAT.bin").exists());
+	}
+}
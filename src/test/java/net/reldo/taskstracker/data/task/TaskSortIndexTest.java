@@ -0,0 +1,130 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSortIndexTest
+{
+	private final TaskType taskType = TestTasks.createTaskType();
+	private final TaskParamStore paramStore = new TaskParamStore(taskType);
+	private final List<TaskFromStruct> tasks = new ArrayList<>();
+	private final Random random = new Random(12);
+	private TaskSortIndex sortIndex;
+
+	@Before
+	public void before()
+	{
+		for (int id = 0; id < 200; id++)
+		{
+			// Few distinct names, so most tasks tie with others
+			tasks.add(TestTasks.createTask(taskType, paramStore, id, 1000 + id, "task " + random.nextInt(10)));
+		}
+		sortIndex = new TaskSortIndex(tasks, paramStore);
+	}
+
+	@Test
+	public void sortIsStable()
+	{
+		for (int size = 0; size < 300; size += size < 20 ? 1 : 37)
+		{
+			int[] keys = new int[size];
+			for (int i = 0; i < size; i++)
+			{
+				keys[i] = random.nextInt(5);
+			}
+
+			int[] positions = TaskSortIndex.sort(size, (a, b) -> Integer.compare(keys[a], keys[b]));
+
+			assertArrayEquals("size " + size, sortReference(size, Comparator.comparingInt(position -> keys[position])), positions);
+		}
+	}
+
+	@Test
+	public void staticOrderSortsOnParam()
+	{
+		int[] positions = sortIndex.get("name");
+
+		assertArrayEquals(sortReference(tasks.size(), Comparator.comparing(position -> tasks.get(position).getName())), positions);
+		// Built once, then cached
+		assertTrue(positions == sortIndex.get("name"));
+	}
+
+	@Test
+	public void liveOrderFollowsDateChanges()
+	{
+		sortIndex.get(TaskSortIndex.COMPLETED_DATE);
+
+		for (int round = 0; round < 20; round++)
+		{
+			for (int change = 0; change < 10; change++)
+			{
+				TaskFromStruct task = tasks.get(random.nextInt(tasks.size()));
+				// Repeated dates to check ties keep list order, and zero to check a task moving back
+				task.setCompletedOn(random.nextInt(4) == 0 ? 0 : 1_700_000_000_000L + random.nextInt(20));
+			}
+
+			assertArrayEquals("round " + round, sortReference(tasks.size(), Comparator.comparingLong(position -> tasks.get(position).getCompletedOn())),
+				sortIndex.get(TaskSortIndex.COMPLETED_DATE));
+		}
+	}
+
+	@Test
+	public void liveOrderIgnoresOtherDates()
+	{
+		int[] positions = sortIndex.get(TaskSortIndex.COMPLETED_DATE);
+
+		tasks.get(3).setTrackedOn(1_700_000_000_000L);
+
+		assertTrue(positions == sortIndex.get(TaskSortIndex.COMPLETED_DATE));
+	}
+
+	@Test
+	public void compositeOrderBreaksTiesWithLaterCriteria()
+	{
+		List<String> criteria = Arrays.asList("name", TaskSortIndex.TRACKED_DATE);
+		Comparator<Integer> reference = Comparator.<Integer, String>comparing(position -> tasks.get(position).getName())
+			.thenComparingLong(position -> tasks.get(position).getTrackedOn());
+		for (int i = 0; i < 50; i++)
+		{
+			tasks.get(random.nextInt(tasks.size())).setTrackedOn(1_700_000_000_000L + random.nextInt(5));
+		}
+
+		assertArrayEquals(sortReference(tasks.size(), reference), sortIndex.get(criteria));
+
+		// Rebuilt when a live criterion it uses changed
+		tasks.get(0).setTrackedOn(1_800_000_000_000L);
+		assertArrayEquals(sortReference(tasks.size(), reference), sortIndex.get(criteria));
+	}
+
+	@Test
+	public void unknownCriteriaAreSkipped()
+	{
+		assertNull(sortIndex.get("default"));
+		assertNull(sortIndex.get(Arrays.asList("default", "unknown")));
+		assertArrayEquals(sortIndex.get("name"), sortIndex.get(Arrays.asList("default", "name", "name")));
+		assertFalse(sortIndex.getCriteria().contains(TaskSortIndex.POINTS));
+	}
+
+	/**
+	 * @return positions sorted by the stable sort of the JDK
+	 */
+	private static int[] sortReference(int size, Comparator<Integer> comparator)
+	{
+		List<Integer> positions = new ArrayList<>(size);
+		for (int i = 0; i < size; i++)
+		{
+			positions.add(i);
+		}
+		positions.sort(comparator);
+		return positions.stream().mapToInt(Integer::intValue).toArray();
+	}
+}
@@ -0,0 +1,54 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.Random;
+
+/**
+ * Generated task text for search tests and benchmarks, from a small vocabulary of task words
+ */
+public class TestSearchFields
+{
+	private static final String[] WORDS = {
+		"kill", "dragon", "slayer", "without", "taking", "damage", "within", "seconds", "defeat", "barrows", "brother",
+		"using", "only", "magic", "ranged", "melee", "prayer", "zulrah", "vorkath", "gauntlet", "corrupted", "hunllef",
+		"jad", "inferno", "zuk", "completion", "perfect", "speed", "chamber", "xeric", "theatre", "blood", "tombs",
+		"amascut", "wintertodt", "tempoross", "grotesque", "guardians", "nightmare", "phosani", "sarachnis", "hydra",
+	};
+
+	/**
+	 * @return the name, description and, for a quarter of the rows, wiki notes of each row
+	 */
+	public static String[][] generateFields(Random random, int size)
+	{
+		String[][] fields = new String[size][];
+		for (int row = 0; row < size; row++)
+		{
+			fields[row] = new String[]{generateText(random, 2 + random.nextInt(2)), generateText(random, 6 + random.nextInt(6)),
+				random.nextInt(4) == 0 ? generateText(random, 10) : ""};
+		}
+		return fields;
+	}
+
+	/**
+	 * @return a word or two, possibly cut short and with a typo
+	 */
+	public static String generateQuery(Random random)
+	{
+		StringBuilder query = new StringBuilder(generateText(random, 1 + random.nextInt(2)));
+		query.setLength(1 + random.nextInt(query.length()));
+		if (query.length() > 3 && random.nextBoolean())
+		{
+			query.setCharAt(random.nextInt(query.length()), (char) ('a' + random.nextInt(26)));
+		}
+		return query.toString();
+	}
+
+	private static String generateText(Random random, int wordCount)
+	{
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < wordCount; i++)
+		{
+			text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return text.toString();
+	}
+}
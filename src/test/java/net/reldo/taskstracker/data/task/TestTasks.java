@@ -0,0 +1,78 @@
+package net.reldo.taskstracker.data.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterType;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterValueType;
+import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinition;
+import net.reldo.taskstracker.data.jsondatastore.types.TaskDefinitionSkill;
+import net.reldo.taskstracker.data.jsondatastore.types.TaskTypeDefinition;
+
+/**
+ * Task types and tasks with their struct data already resolved, for tests that do not need a client
+ */
+public class TestTasks
+{
+	public static final String TASK_JSON_NAME = "COMBAT";
+	public static final int[] TASK_VARPS = {3116, 3117, 3118, 3119};
+
+	/**
+	 * @return a task type with id and tier int params, name and description string params and a tier filter
+	 */
+	public static TaskType createTaskType()
+	{
+		TaskTypeDefinition definition = new TaskTypeDefinition();
+		definition.setName("Combat");
+		definition.setTaskJsonName(TASK_JSON_NAME);
+		HashMap<String, Integer> intParams = new HashMap<>();
+		intParams.put("id", 1306);
+		intParams.put("tier", 1310);
+		definition.setIntParamMap(intParams);
+		HashMap<String, Integer> stringParams = new HashMap<>();
+		stringParams.put("name", 1308);
+		stringParams.put("description", 1309);
+		definition.setStringParamMap(stringParams);
+		ArrayList<FilterConfig> filters = new ArrayList<>();
+		filters.add(new FilterConfig("tier", "Tier", FilterType.BUTTON_FILTER, FilterValueType.PARAM_INTEGER, "tier", null, null));
+		definition.setFilters(filters);
+		ArrayList<Integer> taskVarps = new ArrayList<>();
+		Arrays.stream(TASK_VARPS).forEach(taskVarps::add);
+		definition.setTaskVarps(taskVarps);
+		return new TaskType(null, null, null, definition);
+	}
+
+	/**
+	 * @return a task of tier 1 requiring 70 attack, with wiki notes and a completion percent for even ids
+	 */
+	public static TaskFromStruct createTask(TaskType taskType, TaskParamStore paramStore, int id, int structId, String name)
+	{
+		return createTask(taskType, paramStore, id, structId, name, 1);
+	}
+
+	/**
+	 * @return a task of a tier requiring 70 attack, with wiki notes and a completion percent for even ids
+	 */
+	public static TaskFromStruct createTask(TaskType taskType, TaskParamStore paramStore, int id, int structId, String name, int tier)
+	{
+		TaskDefinition definition = new TaskDefinition();
+		definition.setStructId(structId);
+		definition.setSortId(id);
+		TaskDefinitionSkill skill = new TaskDefinitionSkill();
+		skill.setSkill("ATTACK");
+		skill.setLevel(70);
+		definition.setSkills(Collections.singletonList(skill));
+		definition.setWikiNotes(id % 2 == 0 ? "notes" : null);
+		definition.setCompletionPercent(id % 2 == 0 ? 12.5f : null);
+
+		int[] intValues = new int[paramStore.getIntParamNames().length];
+		intValues[paramStore.getIntOrdinal("id")] = id;
+		intValues[paramStore.getIntOrdinal("tier")] = tier;
+		String[] stringValues = new String[paramStore.getStringParamNames().length];
+		stringValues[paramStore.getStringOrdinal("name")] = name;
+		stringValues[paramStore.getStringOrdinal("description")] = "description " + id;
+		return new TaskFromStruct(taskType, paramStore, definition, intValues, stringValues);
+	}
+}
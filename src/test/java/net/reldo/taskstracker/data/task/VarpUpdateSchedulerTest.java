@@ -0,0 +1,99 @@
+package net.reldo.taskstracker.data.task;
+
+import com.google.inject.Guice;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import net.reldo.taskstracker.TasksTrackerConfig;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VarpUpdateSchedulerTest
+{
+	@Test
+	public void changeAfterIdleFlushesOnNextTick()
+	{
+		VarpUpdateScheduler scheduler = createScheduler(3000);
+
+		scheduler.add(3116);
+
+		assertFlushed(scheduler.onGameTick(), 3116);
+		assertTrue(scheduler.onGameTick().isEmpty());
+	}
+
+	@Test
+	public void continuousChangesFlushWhenQuiet()
+	{
+		VarpUpdateScheduler scheduler = createScheduler(3000);
+		scheduler.add(3116);
+		scheduler.onGameTick();
+
+		scheduler.add(3117);
+		assertTrue(scheduler.onGameTick().isEmpty());
+		scheduler.add(3118);
+		assertTrue(scheduler.onGameTick().isEmpty());
+
+		assertFlushed(scheduler.onGameTick(), 3117, 3118);
+	}
+
+	@Test
+	public void continuousChangesFlushWhenDue()
+	{
+		// 3000ms is 5 ticks
+		VarpUpdateScheduler scheduler = createScheduler(3000);
+		scheduler.add(3116);
+		scheduler.onGameTick();
+
+		scheduler.add(3117);
+		for (int tick = 1; tick < 5; tick++)
+		{
+			assertTrue("tick " + tick, scheduler.onGameTick().isEmpty());
+			scheduler.add(3118);
+		}
+
+		assertFlushed(scheduler.onGameTick(), 3117, 3118);
+	}
+
+	@Test
+	public void latencyIsAtLeastOneTick()
+	{
+		VarpUpdateScheduler scheduler = createScheduler(0);
+		scheduler.add(3116);
+		scheduler.onGameTick();
+
+		scheduler.add(3117);
+
+		assertFlushed(scheduler.onGameTick(), 3117);
+	}
+
+	@Test
+	public void clearDropsPendingVarps()
+	{
+		VarpUpdateScheduler scheduler = createScheduler(3000);
+		scheduler.add(3116);
+
+		scheduler.clear();
+
+		assertTrue(scheduler.onGameTick().isEmpty());
+	}
+
+	private static VarpUpdateScheduler createScheduler(int latencyMs)
+	{
+		TasksTrackerConfig config = new TasksTrackerConfig()
+		{
+			@Override
+			public int varpUpdateLatencyMs()
+			{
+				return latencyMs;
+			}
+		};
+		return Guice.createInjector(binder -> binder.bind(TasksTrackerConfig.class).toInstance(config))
+			.getInstance(VarpUpdateScheduler.class);
+	}
+
+	private static void assertFlushed(Set<Integer> batch, Integer... varpIds)
+	{
+		assertEquals(new HashSet<>(Arrays.asList(varpIds)), batch);
+	}
+}
@@ -0,0 +1,110 @@
+package net.reldo.taskstracker.data.task.filters;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import net.reldo.taskstracker.TasksTrackerPlugin;
+import net.reldo.taskstracker.config.ConfigValues.CompletedFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.IgnoredFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.TrackedFilterValues;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterType;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterValueType;
+import net.reldo.taskstracker.data.task.TaskBitmapIndex;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+import net.reldo.taskstracker.data.task.TaskParamStore;
+import net.reldo.taskstracker.data.task.TaskType;
+import net.reldo.taskstracker.data.task.TestTasks;
+import net.runelite.client.config.ConfigManager;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FilterRegistryTest
+{
+	private static final String BUTTON_KEY = "tier";
+	private static final String DROPDOWN_KEY = "tierDropdown";
+
+	private final TaskType taskType = TestTasks.createTaskType();
+	private final TaskParamStore paramStore = new TaskParamStore(taskType);
+	private final List<TaskFromStruct> tasks = new ArrayList<>();
+	private final ConfigManager configManager = mock(ConfigManager.class);
+	private final Random random = new Random(14);
+	private FilterRegistry registry;
+
+	@Before
+	public void before()
+	{
+		// The task type's tier button filter, plus a dropdown on the same param
+		taskType.getFilters().add(new FilterConfig(DROPDOWN_KEY, "Tier", FilterType.DROPDOWN_FILTER, FilterValueType.PARAM_INTEGER, "tier", null, null));
+		for (int id = 0; id < 100; id++)
+		{
+			tasks.add(TestTasks.createTask(taskType, paramStore, id, 100 + id, "task " + id, 1 + random.nextInt(6)));
+		}
+		registry = new FilterRegistry(taskType, paramStore, TaskBitmapIndex.build(paramStore, taskType.getFilters()), null);
+	}
+
+	@Test
+	public void unchangedFiltersAreReused()
+	{
+		setConfigValue(BUTTON_KEY, "f-1-f,f-2-f");
+		setConfigValue(DROPDOWN_KEY, "2");
+		FilterState first = compile();
+
+		FilterState second = compile();
+		assertSame(first.getParamFilters()[0], second.getParamFilters()[0]);
+		assertSame(first.getParamFilters()[1], second.getParamFilters()[1]);
+
+		// Only the filter whose selection changed is rebuilt
+		setConfigValue(DROPDOWN_KEY, "1");
+		FilterState third = compile();
+		assertSame(first.getParamFilters()[0], third.getParamFilters()[0]);
+		assertNotSame(first.getParamFilters()[1], third.getParamFilters()[1]);
+	}
+
+	@Test
+	public void paramMatchesAgreeWithTaskByTaskEvaluation()
+	{
+		String[] dropdownValues = {null, "", "-1", "x", "1", "2", "3", "7"};
+		for (int i = 0; i < 100; i++)
+		{
+			StringBuilder buttonValue = new StringBuilder();
+			for (int tier = 0; tier <= 7; tier++)
+			{
+				if (random.nextBoolean())
+				{
+					buttonValue.append(buttonValue.length() > 0 ? "," : "").append("f-").append(tier).append("-f");
+				}
+			}
+			setConfigValue(BUTTON_KEY, buttonValue.toString());
+			setConfigValue(DROPDOWN_KEY, dropdownValues[random.nextInt(dropdownValues.length)]);
+
+			FilterState filterState = compile();
+
+			BitSet expected = new BitSet();
+			for (TaskFromStruct task : tasks)
+			{
+				if (filterState.meetsCriteria(task))
+				{
+					expected.set(task.getRow());
+				}
+			}
+			assertEquals("compile " + i, expected, filterState.getParamMatches());
+		}
+	}
+
+	private void setConfigValue(String configKey, String configValue)
+	{
+		when(configManager.getConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, taskType.getFilterConfigPrefix() + configKey)).thenReturn(configValue);
+	}
+
+	private FilterState compile()
+	{
+		return registry.compile(configManager, CompletedFilterValues.COMPLETE_AND_INCOMPLETE, TrackedFilterValues.TRACKED_AND_UNTRACKED, IgnoredFilterValues.IGNORED_AND_NOT_IGNORED);
+	}
+}
@@ -0,0 +1,196 @@
+package net.reldo.taskstracker.data.task.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.reldo.taskstracker.TasksTrackerPlugin;
+import net.reldo.taskstracker.config.ConfigValues.CompletedFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.IgnoredFilterValues;
+import net.reldo.taskstracker.config.ConfigValues.TrackedFilterValues;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterConfig;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterType;
+import net.reldo.taskstracker.data.jsondatastore.types.FilterValueType;
+import net.reldo.taskstracker.data.task.TaskFromStruct;
+import net.reldo.taskstracker.data.task.TaskParamStore;
+import net.reldo.taskstracker.data.task.TaskType;
+import net.reldo.taskstracker.data.task.TestTasks;
+import net.runelite.client.config.ConfigManager;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks compiled filter states against the semantics of the filters that read config for every task
+ */
+public class FilterStateTest
+{
+	private final TaskType taskType = TestTasks.createTaskType();
+	private final TaskParamStore paramStore = new TaskParamStore(taskType);
+	private final List<TaskFromStruct> tasks = new ArrayList<>();
+	private final ConfigManager configManager = mock(ConfigManager.class);
+
+	@Before
+	public void before()
+	{
+		// Tiers 1, 2, 3, 1, 2, 3
+		for (int id = 0; id < 6; id++)
+		{
+			tasks.add(TestTasks.createTask(taskType, paramStore, id, 100 + id, "task " + id, id % 3 + 1));
+		}
+		taskType.getFilters().clear();
+	}
+
+	@Test
+	public void emptyButtonSelectionMatchesNothing()
+	{
+		addFilter("tier", FilterType.BUTTON_FILTER, "tier");
+
+		for (String configValue : new String[]{null, "", "-1"})
+		{
+			setConfigValue("tier", configValue);
+			assertEquals("config " + configValue, ids(), getVisibleIds(compile()));
+		}
+	}
+
+	@Test
+	public void buttonSelectionMatchesSelectedValues()
+	{
+		addFilter("tier", FilterType.BUTTON_FILTER, "tier");
+
+		setConfigValue("tier", "f-1-f,f-3-f");
+		assertEquals(ids(0, 2, 3, 5), getVisibleIds(compile()));
+
+		// Buttons that are not numbers match no int param
+		setConfigValue("tier", "f-2-f,f-x-f");
+		assertEquals(ids(1, 4), getVisibleIds(compile()));
+	}
+
+	@Test
+	public void buttonFilterOnMissingParamMatchesNothing()
+	{
+		addFilter("area", FilterType.BUTTON_FILTER, "area");
+		setConfigValue("area", "f-1-f");
+
+		assertEquals(ids(), getVisibleIds(compile()));
+	}
+
+	@Test
+	public void emptyOrInvalidDropdownMatchesEverything()
+	{
+		addFilter("tierDropdown", FilterType.DROPDOWN_FILTER, "tier");
+
+		for (String configValue : new String[]{null, "", "-1", "tier 2"})
+		{
+			setConfigValue("tierDropdown", configValue);
+			assertEquals("config " + configValue, ids(0, 1, 2, 3, 4, 5), getVisibleIds(compile()));
+		}
+	}
+
+	@Test
+	public void dropdownMatchesSelectedValue()
+	{
+		addFilter("tierDropdown", FilterType.DROPDOWN_FILTER, "tier");
+		setConfigValue("tierDropdown", "2");
+
+		assertEquals(ids(1, 4), getVisibleIds(compile()));
+	}
+
+	@Test
+	public void dropdownOnMissingParamMatchesEverything()
+	{
+		addFilter("area", FilterType.DROPDOWN_FILTER, "area");
+		setConfigValue("area", "1");
+
+		assertEquals(ids(0, 1, 2, 3, 4, 5), getVisibleIds(compile()));
+	}
+
+	@Test
+	public void paramFiltersCombine()
+	{
+		addFilter("tier", FilterType.BUTTON_FILTER, "tier");
+		addFilter("tierDropdown", FilterType.DROPDOWN_FILTER, "tier");
+		setConfigValue("tier", "f-1-f,f-2-f");
+		setConfigValue("tierDropdown", "2");
+
+		assertEquals(ids(1, 4), getVisibleIds(compile()));
+	}
+
+	@Test
+	public void completedFilter()
+	{
+		tasks.get(0).setCompletedOn(1_700_000_000_000L);
+		tasks.get(4).setCompletedOn(1_700_000_000_000L);
+
+		assertEquals(ids(0, 4), getVisibleIds(compile(CompletedFilterValues.COMPLETE, TrackedFilterValues.TRACKED_AND_UNTRACKED, IgnoredFilterValues.IGNORED_AND_NOT_IGNORED)));
+		assertEquals(ids(1, 2, 3, 5), getVisibleIds(compile(CompletedFilterValues.INCOMPLETE, TrackedFilterValues.TRACKED_AND_UNTRACKED, IgnoredFilterValues.IGNORED_AND_NOT_IGNORED)));
+		assertEquals(ids(0, 1, 2, 3, 4, 5), getVisibleIds(compile()));
+	}
+
+	@Test
+	public void trackedFilter()
+	{
+		tasks.get(1).setTrackedOn(1_700_000_000_000L);
+
+		assertEquals(ids(1), getVisibleIds(compile(CompletedFilterValues.COMPLETE_AND_INCOMPLETE, TrackedFilterValues.TRACKED, IgnoredFilterValues.IGNORED_AND_NOT_IGNORED)));
+		assertEquals(ids(0, 2, 3, 4, 5), getVisibleIds(compile(CompletedFilterValues.COMPLETE_AND_INCOMPLETE, TrackedFilterValues.UNTRACKED, IgnoredFilterValues.IGNORED_AND_NOT_IGNORED)));
+	}
+
+	@Test
+	public void ignoredFilter()
+	{
+		tasks.get(2).setIgnoredOn(1_700_000_000_000L);
+
+		assertEquals(ids(2), getVisibleIds(compile(CompletedFilterValues.COMPLETE_AND_INCOMPLETE, TrackedFilterValues.TRACKED_AND_UNTRACKED, IgnoredFilterValues.IGNORED)));
+		assertEquals(ids(0, 1, 3, 4, 5), getVisibleIds(compile(CompletedFilterValues.COMPLETE_AND_INCOMPLETE, TrackedFilterValues.TRACKED_AND_UNTRACKED, IgnoredFilterValues.NOT_IGNORED)));
+	}
+
+	@Test
+	public void allMatchesEverything()
+	{
+		tasks.get(0).setCompletedOn(1_700_000_000_000L);
+		tasks.get(1).setTrackedOn(1_700_000_000_000L);
+		tasks.get(2).setIgnoredOn(1_700_000_000_000L);
+
+		assertEquals(ids(0, 1, 2, 3, 4, 5), getVisibleIds(FilterState.ALL));
+	}
+
+	private void addFilter(String configKey, FilterType filterType, String paramName)
+	{
+		taskType.getFilters().add(new FilterConfig(configKey, configKey, filterType, FilterValueType.PARAM_INTEGER, paramName, null, null));
+	}
+
+	private void setConfigValue(String configKey, String configValue)
+	{
+		when(configManager.getConfiguration(TasksTrackerPlugin.CONFIG_GROUP_NAME, taskType.getFilterConfigPrefix() + configKey)).thenReturn(configValue);
+	}
+
+	private FilterState compile()
+	{
+		return compile(CompletedFilterValues.COMPLETE_AND_INCOMPLETE, TrackedFilterValues.TRACKED_AND_UNTRACKED, IgnoredFilterValues.IGNORED_AND_NOT_IGNORED);
+	}
+
+	private FilterState compile(CompletedFilterValues completedFilter, TrackedFilterValues trackedFilter, IgnoredFilterValues ignoredFilter)
+	{
+		return new FilterRegistry(taskType, paramStore, null, null).compile(configManager, completedFilter, trackedFilter, ignoredFilter);
+	}
+
+	private List<Integer> getVisibleIds(FilterState filterState)
+	{
+		List<Integer> ids = new ArrayList<>();
+		for (TaskFromStruct task : tasks)
+		{
+			if (filterState.meetsCriteria(task))
+			{
+				ids.add(task.getId());
+			}
+		}
+		return ids;
+	}
+
+	private static List<Integer> ids(Integer... ids)
+	{
+		return Arrays.asList(ids);
+	}
+}